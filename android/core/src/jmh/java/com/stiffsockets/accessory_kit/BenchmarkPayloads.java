@@ -0,0 +1,75 @@
+/**
+ * @file: BenchmarkPayloads.java
+ * @package: accessory_kit
+ * @created Date: Mon Dec 2025
+ * @author: Nicholas J. Caruso
+ *
+ * @last Modified: Mon Dec 29 2025
+ * @modified By: Nicholas J. Caruso
+ *
+ * @version: 1.1.31
+ *
+ */
+
+
+
+
+
+package com.stiffsockets.accessory_kit;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+
+/**
+ * BenchmarkPayloads
+ *
+ * Deterministic payloads and wire streams shared by the benchmarks. Text payloads are built to
+ * encode to at most the requested number of UTF-8 bytes, so sizes line up across payload kinds.
+ */
+final class BenchmarkPayloads {
+  // Payload kinds
+  static final String ASCII = "ascii";
+  static final String UTF8 = "utf8";
+  static final String BINARY = "binary";
+
+  // Mixes 1-, 2- and 3-byte UTF-8 sequences
+  private static final String UTF8_PATTERN = "a\u00e9\u20ac";
+
+  private BenchmarkPayloads() {}
+
+  static String text(String kind, int size) {
+    StringBuilder sb = new StringBuilder(size);
+    int bytes = 0;
+    for (int i = 0; ; i++) {
+      char c = UTF8.equals(kind)
+          ? UTF8_PATTERN.charAt(i % UTF8_PATTERN.length())
+          : (char) ('a' + i % 26);
+      int n = c < 0x80 ? 1 : c < 0x800 ? 2 : 3;
+      if (bytes + n > size) {
+        break;
+      }
+      sb.append(c);
+      bytes += n;
+    }
+    return sb.toString();
+  }
+
+  static byte[] bytes(String kind, int size, Random random) {
+    if (BINARY.equals(kind)) {
+      byte[] data = new byte[size];
+      random.nextBytes(data);
+      return data;
+    }
+    return text(kind, size).getBytes(StandardCharsets.UTF_8);
+  }
+
+  static void writeFrame(ByteArrayOutputStream out, byte[] payload) {
+    out.write(FrameDecoder.SOH);
+    out.write((payload.length >> 8) & 0xFF);
+    out.write(payload.length & 0xFF);
+    out.write(payload, 0, payload.length);
+    out.write(FrameDecoder.EOT);
+  }
+}
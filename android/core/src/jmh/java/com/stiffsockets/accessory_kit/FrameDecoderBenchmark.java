@@ -0,0 +1,137 @@
+/**
+ * @file: FrameDecoderBenchmark.java
+ * @package: accessory_kit
+ * @created Date: Mon Dec 2025
+ * @author: Nicholas J. Caruso
+ *
+ * @last Modified: Mon Dec 29 2025
+ * @modified By: Nicholas J. Caruso
+ *
+ * @version: 1.1.31
+ *
+ */
+
+
+
+
+
+package com.stiffsockets.accessory_kit;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+
+/**
+ * FrameDecoderBenchmark
+ *
+ * Decodes a prebuilt stream of {@link #FRAMES} frames per invocation; scores are frames per
+ * second. The stream is fed in chunks of {@code chunkSize} bytes, so small chunks model
+ * fragmented reads and 16384 models a full bulk transfer with many coalesced frames. A chunk
+ * size of 0 feeds the whole stream in one call.
+ *
+ * With {@code corrupted} set, every eighth frame has a bad EOT and noise bytes sit between
+ * frames, so the decoder's resync path is part of the measurement. Payloads are ASCII, which
+ * the decoder never inspects while frames are intact, but after a bad EOT it rescans the
+ * payload: {@code sohPerKilobyte} sets how many payload bytes per 1024 are SOH, each of them
+ * a false frame start the resync has to check and reject.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class FrameDecoderBenchmark {
+  static final int FRAMES = 64;
+
+  @Param({"1", "64", "1024", "16384", "65535"})
+  public int payloadSize;
+
+  @Param({"0", "4", "64"})
+  public int sohPerKilobyte;
+
+  @Param({"64", "16384", "0"})
+  public int chunkSize;
+
+  @Param({"false", "true"})
+  public boolean corrupted;
+
+  private ByteBuffer stream;
+  private FrameDecoder decoder;
+  private Blackhole blackhole;
+
+  @Setup
+  public void setUp(Blackhole bh) {
+    blackhole = bh;
+    Random random = new Random(42);
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    for (int i = 0; i < FRAMES; i++) {
+      byte[] payload = BenchmarkPayloads.bytes(BenchmarkPayloads.ASCII, payloadSize, random);
+      for (int j = 0; j < payload.length; j++) {
+        if (random.nextInt(1024) < sohPerKilobyte) {
+          payload[j] = FrameDecoder.SOH;
+        }
+      }
+      int start = out.size();
+      BenchmarkPayloads.writeFrame(out, payload);
+      if (corrupted) {
+        if (i % 8 == 7) {
+          // Replace the EOT that was just written
+          byte[] bytes = out.toByteArray();
+          bytes[start + payload.length + 3] = 0x7F;
+          out.reset();
+          out.write(bytes, 0, bytes.length);
+        }
+        out.write(0x7F);
+        out.write(0x00);
+      }
+    }
+    stream = ByteBuffer.wrap(out.toByteArray());
+
+    FrameDecoder.Listener listener = new FrameDecoder.Listener() {
+      @Override
+      public void onFrame(byte[] buffer, int offset, int length) {
+        blackhole.consume(buffer);
+      }
+
+      @Override
+      public void onInvalidLength(int length) {
+        blackhole.consume(length);
+      }
+
+      @Override
+      public void onInvalidEot(byte b) {
+        blackhole.consume(b);
+      }
+
+      @Override
+      public void onBytesSkipped(int count) {
+        blackhole.consume(count);
+      }
+    };
+    decoder = new FrameDecoder(FrameEncoder.MAX_PAYLOAD_SIZE, new PayloadPool(), listener);
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(FRAMES)
+  public void decode() {
+    ByteBuffer src = stream;
+    int end = src.capacity();
+    int step = chunkSize > 0 ? chunkSize : end;
+    for (int pos = 0; pos < end; pos += step) {
+      src.limit(Math.min(end, pos + step)).position(pos);
+      decoder.decode(src);
+    }
+    decoder.reset();
+  }
+}
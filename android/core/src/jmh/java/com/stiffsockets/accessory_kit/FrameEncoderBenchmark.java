@@ -0,0 +1,76 @@
+/**
+ * @file: FrameEncoderBenchmark.java
+ * @package: accessory_kit
+ * @created Date: Mon Dec 2025
+ * @author: Nicholas J. Caruso
+ *
+ * @last Modified: Mon Dec 29 2025
+ * @modified By: Nicholas J. Caruso
+ *
+ * @version: 1.1.31
+ *
+ */
+
+
+
+
+
+package com.stiffsockets.accessory_kit;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+
+/**
+ * FrameEncoderBenchmark
+ *
+ * Encodes one frame per operation into a reused buffer, the way the writer thread does.
+ * Text payloads go through {@link FrameEncoder#encode(String, ByteBuffer)} (ASCII fast path or
+ * the cached UTF-8 encoder); binary payloads through the byte[] overload.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class FrameEncoderBenchmark {
+  @Param({"1", "64", "1024", "16384", "65535"})
+  public int payloadSize;
+
+  @Param({BenchmarkPayloads.ASCII, BenchmarkPayloads.UTF8, BenchmarkPayloads.BINARY})
+  public String payloadKind;
+
+  @Param({"heap", "direct"})
+  public String bufferType;
+
+  private final FrameEncoder encoder = new FrameEncoder();
+  private ByteBuffer frameBuffer;
+  private String text;
+  private byte[] data;
+
+  @Setup
+  public void setUp() {
+    int capacity = FrameEncoder.MAX_PAYLOAD_SIZE + FrameEncoder.FRAME_OVERHEAD;
+    frameBuffer = "direct".equals(bufferType)
+        ? ByteBuffer.allocateDirect(capacity)
+        : ByteBuffer.allocate(capacity);
+    text = BenchmarkPayloads.text(payloadKind, payloadSize);
+    data = BenchmarkPayloads.bytes(payloadKind, payloadSize, new Random(42));
+  }
+
+  @Benchmark
+  public int encode() {
+    if (BenchmarkPayloads.BINARY.equals(payloadKind)) {
+      return encoder.encode(data, 0, data.length, frameBuffer);
+    }
+    return encoder.encode(text, frameBuffer);
+  }
+}
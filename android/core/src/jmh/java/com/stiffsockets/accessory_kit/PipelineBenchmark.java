@@ -0,0 +1,364 @@
+/**
+ * @file: PipelineBenchmark.java
+ * @package: accessory_kit
+ * @created Date: Mon Dec 2025
+ * @author: Nicholas J. Caruso
+ *
+ * @last Modified: Mon Dec 29 2025
+ * @modified By: Nicholas J. Caruso
+ *
+ * @version: 1.1.31
+ *
+ */
+
+
+
+
+
+package com.stiffsockets.accessory_kit;
+
+import java.io.IOException;
+import java.util.Locale;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * PipelineBenchmark
+ *
+ * End-to-end benchmark of the device pipeline against a {@link SimulatedHost}. The device
+ * side is wired the way the plugin wires a connection: FrameReader, FrameDecoder,
+ * InboundPipeline and DeliveryBatcher on the receive path, FrameWriter on the send path, and a
+ * single "main" thread standing in for the Android looper.
+ *
+ * Scenarios:
+ *   echo       64-byte messages echoed by the host; RTT is measured send-to-delivery
+ *   mixed      echo where every tenth message is 16 KB and the rest are 32 B
+ *   flood-in   the host writes as fast as it can; the device delivers everything
+ *   flood-out  the device sends as fast as it can; the host only counts
+ *
+ * Arguments are key=value pairs: scenario (default all), messages (100000), window
+ * (outstanding echo requests, default 8), transport (socket for loopback TCP, or memory for
+ * {@link LoopbackTransport}), and reads, a comma-separated list of read size configurations to
+ * compare: a fixed size such as 64 (the old fixed reads), min-max bounds for the adaptive
+ * sizer, or adaptive for the plugin defaults (default 64,adaptive). Every scenario runs once
+ * per configuration, so reads/MB shows the syscall cost of each side by side. Runs headless;
+ * use `gradle pipelineBenchmark -PbenchArgs="..."`.
+ */
+public final class PipelineBenchmark {
+  private static final String[] SCENARIOS = {"echo", "mixed", "flood-in", "flood-out"};
+  private static final int SMALL = 32;
+  private static final int LARGE = 16384;
+  private static final int ECHO_SIZE = 64;
+  private static final long TIMEOUT_S = 120;
+
+  private final String transportType;
+  private final int window;
+  // Read size bounds of the configuration being run
+  private int minReadSize = ReadBufferSizer.DEFAULT_SIZE;
+  private int maxReadSize = ReadBufferSizer.DEFAULT_MAX_SIZE;
+
+  private PipelineBenchmark(String transportType, int window) {
+    this.transportType = transportType;
+    this.window = window;
+  }
+
+  public static void main(String[] args) throws Exception {
+    String scenario = "all";
+    int messages = 100000;
+    int window = 8;
+    String transport = "socket";
+    String reads = "64,adaptive";
+    for (String arg : args) {
+      int eq = arg.indexOf('=');
+      String key = eq < 0 ? arg : arg.substring(0, eq);
+      String value = eq < 0 ? "" : arg.substring(eq + 1);
+      switch (key) {
+        case "scenario":
+          scenario = value;
+          break;
+        case "messages":
+          messages = Integer.parseInt(value);
+          break;
+        case "window":
+          window = Integer.parseInt(value);
+          break;
+        case "transport":
+          transport = value;
+          break;
+        case "reads":
+          reads = value;
+          break;
+        default:
+          throw new IllegalArgumentException("Unknown argument: " + arg);
+      }
+    }
+
+    PipelineBenchmark benchmark = new PipelineBenchmark(transport, Math.max(1, window));
+    System.out.printf(Locale.ROOT, "transport=%s messages=%d window=%d%n", transport, messages, window);
+    System.out.printf(Locale.ROOT, "%-10s %-12s %10s %12s %9s %9s %9s %9s %9s%n",
+        "scenario", "read size", "msgs/s", "MB/s", "p50 us", "p99 us", "p999 us", "reads/MB", "writes/MB");
+    for (String name : SCENARIOS) {
+      if (scenario.equals("all") || scenario.equals(name)) {
+        for (String readSize : reads.split(",")) {
+          benchmark.setReadSize(readSize);
+          // Warm up the JIT on a shorter run, then measure on a fresh link
+          benchmark.run(name, Math.max(1000, messages / 10));
+          benchmark.run(name, messages).print(name, benchmark.readSizeLabel());
+        }
+      }
+    }
+  }
+
+  /** Parses a read size configuration: adaptive, a fixed size, or min-max bounds. */
+  private void setReadSize(String config) {
+    if ("adaptive".equals(config)) {
+      minReadSize = ReadBufferSizer.DEFAULT_SIZE;
+      maxReadSize = ReadBufferSizer.DEFAULT_MAX_SIZE;
+      return;
+    }
+    int dash = config.indexOf('-');
+    if (dash < 0) {
+      minReadSize = Integer.parseInt(config);
+      maxReadSize = minReadSize;
+    } else {
+      minReadSize = Integer.parseInt(config.substring(0, dash));
+      maxReadSize = Integer.parseInt(config.substring(dash + 1));
+    }
+  }
+
+  private String readSizeLabel() {
+    return minReadSize == maxReadSize ? Integer.toString(minReadSize) : minReadSize + "-" + maxReadSize;
+  }
+
+  /** One measured run. */
+  private static final class Result {
+    long messages;
+    long payloadBytes;
+    long nanos;
+    LatencyHistogram rtt;
+    LinkStats stats;
+
+    void print(String name, String readSize) {
+      double seconds = nanos / 1e9;
+      double mb = payloadBytes / 1048576.0;
+      double readMb = stats.get(LinkStats.WIRE_BYTES_READ) / 1048576.0;
+      double writeMb = (stats.get(LinkStats.BYTES_SENT)
+          + stats.get(LinkStats.FRAMES_SENT) * FrameEncoder.FRAME_OVERHEAD) / 1048576.0;
+      System.out.printf(Locale.ROOT, "%-10s %-12s %10.0f %12.2f %9s %9s %9s %9s %9s%n",
+          name, readSize, messages / seconds, mb / seconds,
+          micros(50), micros(99), micros(99.9),
+          readMb > 0 ? String.format(Locale.ROOT, "%.1f", stats.get(LinkStats.READ_CALLS) / readMb) : "-",
+          writeMb > 0 ? String.format(Locale.ROOT, "%.1f", stats.get(LinkStats.FRAMES_SENT) / writeMb) : "-");
+    }
+
+    private String micros(double percentile) {
+      if (rtt == null || rtt.getCount() == 0) {
+        return "-";
+      }
+      return String.format(Locale.ROOT, "%.1f", rtt.getPercentile(percentile) / 1000.0);
+    }
+  }
+
+  /** Device end of one link. */
+  private final class Device {
+    final LinkStats stats = new LinkStats();
+    final ScheduledExecutorService main = Executors.newSingleThreadScheduledExecutor(r -> new Thread(r, "main"));
+    final FrameReader reader;
+    final FrameWriter writer;
+    final Thread readerThread;
+    final Thread writerThread;
+
+    Device(Transport transport, DeliveryBatcher.Sink sink) {
+      DeliveryBatcher.Scheduler scheduler = new DeliveryBatcher.Scheduler() {
+        @Override
+        public void post(Runnable task) {
+          main.execute(task);
+        }
+
+        @Override
+        public void postDelayed(Runnable task, long delayMs) {
+          main.schedule(task, delayMs, TimeUnit.MILLISECONDS);
+        }
+      };
+      DemandGate demand = new DemandGate();
+      InboundPipeline inbound = new InboundPipeline(stats,
+          new DeliveryBatcher(scheduler, stats, batch -> { }),
+          new DeliveryBatcher(scheduler, stats, sink), demand);
+      inbound.setBytesListening(true);
+      FrameDecoder decoder = new FrameDecoder(FrameEncoder.MAX_PAYLOAD_SIZE, new PayloadPool(), inbound);
+      reader = new FrameReader(transport, decoder, FrameReader.Mode.BLOCKING, 0,
+          new ReadBufferSizer(minReadSize, minReadSize, maxReadSize),
+          stats, demand, new FrameReader.Callback() {
+            @Override
+            public void onEndOfStream(FrameReader r) {
+            }
+
+            @Override
+            public void onReadError(IOException e) {
+            }
+          });
+      writer = new FrameWriter(transport, FrameWriter.DEFAULT_QUEUE_CAPACITY, stats, new FrameWriter.Callback() {
+        @Override
+        public void onComplete(Object token, boolean success) {
+        }
+
+        @Override
+        public void onWriteError(IOException e) {
+        }
+      });
+      readerThread = new Thread(reader, "AccessoryKit-reader");
+      writerThread = new Thread(writer, "AccessoryKit-writer");
+      readerThread.start();
+      writerThread.start();
+    }
+
+    void send(byte[] payload) {
+      while (!writer.enqueue(payload, null)) {
+        Thread.yield();
+      }
+    }
+
+    void close(Transport transport) throws Exception {
+      reader.stop();
+      writer.stop();
+      transport.close();
+      readerThread.join();
+      writerThread.join();
+      main.shutdownNow();
+    }
+  }
+
+  private Result run(String scenario, int messages) throws Exception {
+    Transport device;
+    Transport host;
+    if ("memory".equals(transportType)) {
+      LoopbackTransport loopback = LoopbackTransport.create(ReadBufferSizer.DEFAULT_MAX_SIZE);
+      device = loopback;
+      host = loopback.peer();
+    } else {
+      SocketTransport[] pair = SocketTransport.pair();
+      device = pair[0];
+      host = pair[1];
+    }
+
+    switch (scenario) {
+      case "echo":
+        return echo(device, host, messages, i -> ECHO_SIZE);
+      case "mixed":
+        return echo(device, host, messages, i -> i % 10 == 9 ? LARGE : SMALL);
+      case "flood-in":
+        return floodIn(device, host, messages);
+      case "flood-out":
+        return floodOut(device, host, messages);
+      default:
+        throw new IllegalArgumentException("Unknown scenario: " + scenario);
+    }
+  }
+
+  private Result echo(Transport deviceEnd, Transport hostEnd, int messages, SimulatedHost.Sizes sizes) throws Exception {
+    final long[] sentAt = new long[messages];
+    final LatencyHistogram rtt = new LatencyHistogram();
+    final Semaphore credits = new Semaphore(window);
+    final CountDownLatch done = new CountDownLatch(messages);
+
+    Device device = new Device(deviceEnd, batch -> {
+      long now = System.nanoTime();
+      for (Object message : batch) {
+        rtt.record(now - sentAt[sequenceOf((byte[]) message)]);
+        credits.release();
+        done.countDown();
+      }
+    });
+    Thread host = new Thread(new SimulatedHost(hostEnd, SimulatedHost.Mode.ECHO, 0, null, null), "host");
+    host.start();
+
+    long payloadBytes = 0;
+    long start = System.nanoTime();
+    for (int i = 0; i < messages; i++) {
+      int size = sizes.sizeOf(i);
+      byte[] payload = new byte[size];
+      payload[0] = (byte) (i >>> 24);
+      payload[1] = (byte) (i >>> 16);
+      payload[2] = (byte) (i >>> 8);
+      payload[3] = (byte) i;
+      payloadBytes += size;
+      credits.acquire();
+      sentAt[i] = System.nanoTime();
+      device.send(payload);
+    }
+    await(done);
+    long nanos = System.nanoTime() - start;
+
+    device.close(deviceEnd);
+    host.join();
+    return result(messages, payloadBytes, nanos, rtt, device.stats);
+  }
+
+  private Result floodIn(Transport deviceEnd, Transport hostEnd, int messages) throws Exception {
+    final CountDownLatch done = new CountDownLatch(messages);
+    final long[] payloadBytes = new long[1];
+    Device device = new Device(deviceEnd, batch -> {
+      for (Object message : batch) {
+        payloadBytes[0] += ((byte[]) message).length;
+        done.countDown();
+      }
+    });
+
+    long start = System.nanoTime();
+    Thread host = new Thread(new SimulatedHost(hostEnd, SimulatedHost.Mode.FLOOD, messages,
+        i -> i % 10 == 9 ? LARGE : SMALL, null), "host");
+    host.start();
+    await(done);
+    long nanos = System.nanoTime() - start;
+
+    device.close(deviceEnd);
+    host.join();
+    return result(messages, payloadBytes[0], nanos, null, device.stats);
+  }
+
+  private Result floodOut(Transport deviceEnd, Transport hostEnd, int messages) throws Exception {
+    CountDownLatch done = new CountDownLatch(messages);
+    Device device = new Device(deviceEnd, batch -> { });
+    Thread host = new Thread(new SimulatedHost(hostEnd, SimulatedHost.Mode.SINK, 0, null, done), "host");
+    host.start();
+
+    long payloadBytes = 0;
+    long start = System.nanoTime();
+    for (int i = 0; i < messages; i++) {
+      int size = i % 10 == 9 ? LARGE : SMALL;
+      payloadBytes += size;
+      device.send(new byte[size]);
+    }
+    await(done);
+    long nanos = System.nanoTime() - start;
+
+    device.close(deviceEnd);
+    host.join();
+    return result(messages, payloadBytes, nanos, null, device.stats);
+  }
+
+  private static Result result(long messages, long payloadBytes, long nanos, LatencyHistogram rtt, LinkStats stats) {
+    Result result = new Result();
+    result.messages = messages;
+    result.payloadBytes = payloadBytes;
+    result.nanos = nanos;
+    result.rtt = rtt;
+    result.stats = stats;
+    return result;
+  }
+
+  private static int sequenceOf(byte[] payload) {
+    return ((payload[0] & 0xFF) << 24) | ((payload[1] & 0xFF) << 16)
+        | ((payload[2] & 0xFF) << 8) | (payload[3] & 0xFF);
+  }
+
+  private static void await(CountDownLatch latch) throws InterruptedException {
+    if (!latch.await(TIMEOUT_S, TimeUnit.SECONDS)) {
+      throw new IllegalStateException("Timed out with " + latch.getCount() + " messages outstanding");
+    }
+  }
+}
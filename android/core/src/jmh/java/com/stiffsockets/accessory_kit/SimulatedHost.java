@@ -0,0 +1,143 @@
+/**
+ * @file: SimulatedHost.java
+ * @package: accessory_kit
+ * @created Date: Mon Dec 2025
+ * @author: Nicholas J. Caruso
+ *
+ * @last Modified: Mon Dec 29 2025
+ * @modified By: Nicholas J. Caruso
+ *
+ * @version: 1.1.31
+ *
+ */
+
+
+
+
+
+package com.stiffsockets.accessory_kit;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.CountDownLatch;
+
+
+/**
+ * SimulatedHost
+ *
+ * The USB host end of a benchmark link. It decodes what the device sends and, depending on
+ * the mode, echoes every frame back, only counts frames, or floods the device with frames.
+ * Echoed frames produced by one read are written back together, the way a host batches its
+ * bulk OUT transfers.
+ */
+final class SimulatedHost implements Runnable {
+  enum Mode {
+    ECHO, SINK, FLOOD
+  }
+
+  /** Payload size of the i-th flooded frame. */
+  interface Sizes {
+    int sizeOf(int index);
+  }
+
+  private static final int BUFFER_SIZE = 262144;
+
+  private final Transport transport;
+  private final Mode mode;
+  private final int floodCount;
+  private final Sizes floodSizes;
+  private final CountDownLatch received;
+  private final ByteBuffer in;
+  private final ByteBuffer out;
+  private final byte[] scratch = new byte[FrameEncoder.MAX_PAYLOAD_SIZE];
+
+  /**
+   * {@code received} is counted down once per decoded frame. In FLOOD mode the host first
+   * writes {@code floodCount} frames sized by {@code floodSizes}.
+   */
+  SimulatedHost(Transport transport, Mode mode, int floodCount, Sizes floodSizes, CountDownLatch received) {
+    this.transport = transport;
+    this.mode = mode;
+    this.floodCount = floodCount;
+    this.floodSizes = floodSizes;
+    this.received = received;
+    this.in = transport.allocate(BUFFER_SIZE);
+    this.out = transport.allocate(BUFFER_SIZE);
+  }
+
+  @Override
+  public void run() {
+    FrameDecoder decoder = new FrameDecoder(FrameEncoder.MAX_PAYLOAD_SIZE, new PayloadPool(), new FrameDecoder.Listener() {
+      @Override
+      public void onFrame(byte[] buffer, int offset, int length) {
+        if (received != null) {
+          received.countDown();
+        }
+        if (mode == Mode.ECHO) {
+          try {
+            put(buffer, offset, length);
+          } catch (IOException e) {
+            throw new IllegalStateException(e);
+          }
+        }
+      }
+
+      @Override
+      public void onInvalidLength(int length) {
+      }
+
+      @Override
+      public void onInvalidEot(byte b) {
+      }
+
+      @Override
+      public void onBytesSkipped(int count) {
+      }
+    });
+
+    try {
+      if (mode == Mode.FLOOD) {
+        for (int i = 0; i < floodCount; i++) {
+          int size = floodSizes.sizeOf(i);
+          scratch[0] = (byte) (i >>> 24);
+          scratch[1] = (byte) (i >>> 16);
+          scratch[2] = (byte) (i >>> 8);
+          scratch[3] = (byte) i;
+          put(scratch, 0, size);
+        }
+        flush();
+      }
+
+      while (true) {
+        in.clear();
+        if (transport.read(in) < 0) {
+          break;
+        }
+        in.flip();
+        decoder.decode(in);
+        flush();
+      }
+    } catch (IOException | IllegalStateException e) {
+      // The device closed the link
+    }
+  }
+
+  private void put(byte[] payload, int offset, int length) throws IOException {
+    if (out.remaining() < length + FrameEncoder.FRAME_OVERHEAD) {
+      flush();
+    }
+    out.put(FrameDecoder.SOH);
+    out.put((byte) (length >>> 8));
+    out.put((byte) length);
+    out.put(payload, offset, length);
+    out.put(FrameDecoder.EOT);
+  }
+
+  private void flush() throws IOException {
+    if (out.position() > 0) {
+      out.flip();
+      transport.write(out);
+      out.clear();
+    }
+  }
+}
@@ -0,0 +1,75 @@
+/**
+ * @file: SocketTransport.java
+ * @package: accessory_kit
+ * @created Date: Mon Dec 2025
+ * @author: Nicholas J. Caruso
+ *
+ * @last Modified: Mon Dec 29 2025
+ * @modified By: Nicholas J. Caruso
+ *
+ * @version: 1.1.31
+ *
+ */
+
+
+
+
+
+package com.stiffsockets.accessory_kit;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+
+
+/**
+ * SocketTransport
+ *
+ * {@link Transport} over a blocking loopback TCP connection with direct buffers. A connected
+ * pair stands in for the accessory file descriptor and the host's end of the USB link: every
+ * read and write is a real syscall, like on the device.
+ */
+final class SocketTransport implements Transport {
+  private final SocketChannel channel;
+
+  private SocketTransport(SocketChannel channel) throws IOException {
+    this.channel = channel;
+    channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+  }
+
+  /** Opens a connected pair on the loopback interface. Index 0 is the device end. */
+  static SocketTransport[] pair() throws IOException {
+    try (ServerSocketChannel server = ServerSocketChannel.open()) {
+      server.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+      SocketChannel device = SocketChannel.open(server.getLocalAddress());
+      SocketChannel host = server.accept();
+      return new SocketTransport[] {new SocketTransport(device), new SocketTransport(host)};
+    }
+  }
+
+  @Override
+  public int read(ByteBuffer dst) throws IOException {
+    return channel.read(dst);
+  }
+
+  @Override
+  public void write(ByteBuffer src) throws IOException {
+    while (src.hasRemaining()) {
+      channel.write(src);
+    }
+  }
+
+  @Override
+  public ByteBuffer allocate(int capacity) {
+    return ByteBuffer.allocateDirect(capacity);
+  }
+
+  @Override
+  public void close() throws IOException {
+    channel.close();
+  }
+}
@@ -0,0 +1,149 @@
+/**
+ * @file: AccessoryLog.java
+ * @package: accessory_kit
+ * @created Date: Mon Dec 2025
+ * @author: Nicholas J. Caruso
+ *
+ * @last Modified: Mon Dec 29 2025
+ * @modified By: Nicholas J. Caruso
+ *
+ * @version: 1.1.31
+ *
+ */
+
+
+
+
+
+package com.stiffsockets.accessory_kit;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+
+/**
+ * AccessoryLog
+ *
+ * Level-gated logging for the plugin. The level is set at runtime from Dart; a disabled call
+ * costs one volatile read. Hot paths must check {@link #isLoggable} (or {@link #sampleFrame})
+ * before building a message so disabled levels never pay for string concatenation.
+ *
+ * Per-frame logging is off by default. When enabled, one frame in N is logged, and payload
+ * contents are only included if explicitly requested. Decode error warnings are rate-limited
+ * to one per second, since a noisy link can raise one per byte.
+ *
+ * Priorities match android.util.Log, so the Android sink passes them straight through.
+ */
+public final class AccessoryLog {
+  public static final int VERBOSE = 2;
+  public static final int DEBUG = 3;
+  public static final int INFO = 4;
+  public static final int WARN = 5;
+  public static final int ERROR = 6;
+  public static final int NONE = 7;
+
+  private static final long DECODE_ERROR_INTERVAL_NS = 1_000_000_000L;
+
+  /** Where log lines go. */
+  public interface Sink {
+    void println(int priority, String tag, String message, Throwable error);
+  }
+
+  private static volatile Sink sink = (priority, tag, message, error) -> { };
+  private static volatile int level = INFO;
+  private static volatile int frameSampleRate = 0;
+  private static volatile boolean logPayloads = false;
+  private static final AtomicInteger frameCounter = new AtomicInteger();
+  private static volatile long nextDecodeErrorNanos = System.nanoTime();
+  private static final AtomicInteger skippedDecodeErrors = new AtomicInteger();
+
+  private AccessoryLog() {}
+
+  public static void setSink(Sink newSink) {
+    sink = newSink;
+  }
+
+  /** Sets the minimum priority that is logged; {@link #NONE} silences everything. */
+  public static void setLevel(int newLevel) {
+    level = newLevel;
+  }
+
+  /**
+   * Logs one frame in {@code everyN} at DEBUG (0 turns per-frame logging off), optionally with
+   * payload contents.
+   */
+  public static void setFrameSampling(int everyN, boolean payloads) {
+    frameSampleRate = Math.max(0, everyN);
+    logPayloads = payloads;
+  }
+
+  public static boolean isLoggable(int priority) {
+    return priority >= level;
+  }
+
+  /** True if the current frame should be logged. Cheap when frame logging is off. */
+  public static boolean sampleFrame() {
+    int rate = frameSampleRate;
+    if (rate == 0 || DEBUG < level) {
+      return false;
+    }
+    return rate == 1 || frameCounter.incrementAndGet() % rate == 0;
+  }
+
+  /**
+   * Whether the current decode error should be logged: returns -1 to skip it, or the number
+   * of errors skipped since the last one logged. Cheap when WARN is disabled.
+   */
+  public static int sampleDecodeError() {
+    if (WARN < level) {
+      return -1;
+    }
+    long now = System.nanoTime();
+    if (now - nextDecodeErrorNanos < 0) {
+      skippedDecodeErrors.incrementAndGet();
+      return -1;
+    }
+    nextDecodeErrorNanos = now + DECODE_ERROR_INTERVAL_NS;
+    return skippedDecodeErrors.getAndSet(0);
+  }
+
+  /** Lets the next decode error be logged right away. */
+  static void resetDecodeErrorSampling() {
+    nextDecodeErrorNanos = System.nanoTime();
+    skippedDecodeErrors.set(0);
+  }
+
+  /** True if sampled frame logs may include payload contents. */
+  public static boolean logPayloads() {
+    return logPayloads;
+  }
+
+  public static void d(String tag, String message) {
+    if (DEBUG >= level) {
+      sink.println(DEBUG, tag, message, null);
+    }
+  }
+
+  public static void i(String tag, String message) {
+    if (INFO >= level) {
+      sink.println(INFO, tag, message, null);
+    }
+  }
+
+  public static void w(String tag, String message) {
+    if (WARN >= level) {
+      sink.println(WARN, tag, message, null);
+    }
+  }
+
+  public static void e(String tag, String message) {
+    if (ERROR >= level) {
+      sink.println(ERROR, tag, message, null);
+    }
+  }
+
+  public static void e(String tag, String message, Throwable error) {
+    if (ERROR >= level) {
+      sink.println(ERROR, tag, message, error);
+    }
+  }
+}
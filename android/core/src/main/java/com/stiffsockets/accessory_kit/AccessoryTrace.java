@@ -0,0 +1,106 @@
+/**
+ * @file: AccessoryTrace.java
+ * @package: accessory_kit
+ * @created Date: Mon Dec 2025
+ * @author: Nicholas J. Caruso
+ *
+ * @last Modified: Mon Dec 29 2025
+ * @modified By: Nicholas J. Caruso
+ *
+ * @version: 1.1.31
+ *
+ */
+
+
+
+
+
+package com.stiffsockets.accessory_kit;
+
+
+/**
+ * AccessoryTrace
+ *
+ * Optional trace sections and counters for system tracing (Perfetto/systrace). Off by default
+ * and switched at runtime from Dart; when off, a call costs one volatile read. The backend is
+ * installed by the platform layer.
+ *
+ * Sections must be closed on the thread that opened them, and only if begin() returned true,
+ * so toggling tracing mid-section never unbalances the trace:
+ *
+ * <pre>
+ *   boolean traced = AccessoryTrace.begin(AccessoryTrace.DECODE);
+ *   ...
+ *   if (traced) AccessoryTrace.end();
+ * </pre>
+ */
+public final class AccessoryTrace {
+  // Section names
+  public static final String READ = "AccessoryKit:read";
+  public static final String DECODE = "AccessoryKit:decode";
+  public static final String DELIVER = "AccessoryKit:deliver";
+  public static final String ENCODE = "AccessoryKit:encode";
+  public static final String WRITE = "AccessoryKit:write";
+
+  // Counter names
+  public static final String READ_BYTES = "AccessoryKit:readBytes";
+  public static final String BATCH_SIZE = "AccessoryKit:batchSize";
+  public static final String SEND_QUEUE_DEPTH = "AccessoryKit:sendQueueDepth";
+
+  /** Trace backend. */
+  public interface Backend {
+    void beginSection(String name);
+
+    void endSection();
+
+    void setCounter(String name, long value);
+  }
+
+  private static volatile Backend backend = null;
+  private static volatile boolean enabled = false;
+
+  private AccessoryTrace() {}
+
+  public static void setBackend(Backend newBackend) {
+    backend = newBackend;
+  }
+
+  public static void setEnabled(boolean on) {
+    enabled = on;
+  }
+
+  public static boolean isEnabled() {
+    return enabled && backend != null;
+  }
+
+  /** Opens a section if tracing is on. Returns true if {@link #end} must be called. */
+  public static boolean begin(String name) {
+    if (!enabled) {
+      return false;
+    }
+    Backend b = backend;
+    if (b == null) {
+      return false;
+    }
+    b.beginSection(name);
+    return true;
+  }
+
+  /** Closes the section opened by the matching {@link #begin} on this thread. */
+  public static void end() {
+    Backend b = backend;
+    if (b != null) {
+      b.endSection();
+    }
+  }
+
+  public static void counter(String name, long value) {
+    if (!enabled) {
+      return;
+    }
+    Backend b = backend;
+    if (b != null) {
+      b.setCounter(name, value);
+    }
+  }
+}
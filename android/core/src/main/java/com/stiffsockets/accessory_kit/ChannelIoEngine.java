@@ -0,0 +1,61 @@
+/**
+ * @file: ChannelIoEngine.java
+ * @package: accessory_kit
+ * @created Date: Mon Dec 2025
+ * @author: Nicholas J. Caruso
+ *
+ * @last Modified: Mon Dec 29 2025
+ * @modified By: Nicholas J. Caruso
+ *
+ * @version: 1.1.31
+ *
+ */
+
+
+
+
+
+package com.stiffsockets.accessory_kit;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+
+/**
+ * ChannelIoEngine
+ *
+ * {@link IoEngine} over FileChannels using direct buffers, so the kernel reads into and writes
+ * from the buffers the decoder and encoder work on without an intermediate heap copy. Inbound
+ * payloads still leave the direct buffer through one pooled copy, because the decoder hands
+ * frames to its listener as byte arrays; see {@link FrameDecoder}.
+ *
+ * FileChannel is interruptible: interrupting a thread blocked in read() or write() closes the
+ * channel, so stop the reader by closing the file descriptor instead.
+ */
+public final class ChannelIoEngine implements IoEngine {
+  private final FileChannel readChannel;
+  private final FileChannel writeChannel;
+
+  public ChannelIoEngine(FileChannel readChannel, FileChannel writeChannel) {
+    this.readChannel = readChannel;
+    this.writeChannel = writeChannel;
+  }
+
+  @Override
+  public int read(ByteBuffer dst) throws IOException {
+    return readChannel.read(dst);
+  }
+
+  @Override
+  public void write(ByteBuffer src) throws IOException {
+    while (src.hasRemaining()) {
+      writeChannel.write(src);
+    }
+  }
+
+  @Override
+  public ByteBuffer allocate(int capacity) {
+    return ByteBuffer.allocateDirect(capacity);
+  }
+}
@@ -0,0 +1,418 @@
+/**
+ * @file: DeliveryBatcher.java
+ * @package: accessory_kit
+ * @created Date: Mon Dec 2025
+ * @author: Nicholas J. Caruso
+ *
+ * @last Modified: Mon Dec 29 2025
+ * @modified By: Nicholas J. Caruso
+ *
+ * @version: 1.1.31
+ *
+ */
+
+
+
+
+
+package com.stiffsockets.accessory_kit;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+
+/**
+ * DeliveryBatcher
+ *
+ * Collects decoded messages on the reader thread and hands them to the main thread as one list
+ * per batch, so a burst of frames costs one post and one platform-channel hop instead of one
+ * per frame.
+ *
+ * A batch is sealed as soon as it reaches maxCount messages or maxBytes payload bytes. A batch
+ * that stays below both limits is flushed maxDelayMs after its first message; with a delay of
+ * zero, everything that arrives before the main thread runs the flush goes out together.
+ * Batches are delivered in arrival order.
+ *
+ * Each batch carries the time of its first message and of its hand-off to the delivery thread,
+ * feeding the deliveryQueue and mainThreadHop latency histograms.
+ *
+ * Everything not yet delivered counts against a queue budget of maxQueuedCount messages and
+ * maxQueuedBytes payload bytes, so a slow consumer cannot pile up work without limit. What
+ * happens to a message that does not fit is set by the {@link OverflowPolicy}; a message is
+ * always admitted into an empty queue, however large.
+ *
+ * Messages offered with a conflation key replace the message with the same key in the batch
+ * still being collected, keeping its place, so each delivery carries only the latest value
+ * per key. Batches already sealed are not touched.
+ */
+public final class DeliveryBatcher {
+
+  /** Runs tasks on the delivery thread. */
+  public interface Scheduler {
+    void post(Runnable task);
+
+    void postDelayed(Runnable task, long delayMs);
+  }
+
+  /** Receives batches on the delivery thread. */
+  public interface Sink {
+    void deliver(List<Object> batch);
+  }
+
+  /** What {@link #offer} does when the queue budget is used up. */
+  public enum OverflowPolicy {
+    /** Discard the oldest undelivered messages to make room. */
+    DROP_OLDEST,
+    /** Discard the message being offered. */
+    DROP_NEWEST,
+    /**
+     * Hold the offering thread until enough has been delivered. On the reader thread this
+     * stops reads, so the host's writes stall instead of this process buffering them.
+     */
+    BLOCK
+  }
+
+  public static final int DEFAULT_MAX_COUNT = 256;
+  public static final int DEFAULT_MAX_BYTES = 262144;
+  public static final long DEFAULT_MAX_DELAY_MS = 0;
+  public static final int DEFAULT_MAX_QUEUED_COUNT = 8192;
+  public static final int DEFAULT_MAX_QUEUED_BYTES = 8 << 20;
+  public static final OverflowPolicy DEFAULT_OVERFLOW_POLICY = OverflowPolicy.BLOCK;
+
+  private static final class Batch {
+    final ArrayList<Object> messages = new ArrayList<>();
+    long firstNanos;
+    long sealedNanos;
+    // Position of each conflation key in this batch; created on the first keyed message
+    HashMap<Object, Integer> keySlots;
+  }
+
+  private final Scheduler scheduler;
+  private final Sink sink;
+  private final LinkStats stats;
+  // Flushes sealed batches only; the pending batch waits for its own timer
+  private final Runnable flushTask = () -> flush(-1);
+  private final Object lock = new Object();
+
+  private volatile int maxCount = DEFAULT_MAX_COUNT;
+  private volatile int maxBytes = DEFAULT_MAX_BYTES;
+  private volatile long maxDelayMs = DEFAULT_MAX_DELAY_MS;
+
+  // Guarded by lock
+  private final ArrayDeque<Batch> ready = new ArrayDeque<>();
+  private Batch pending = new Batch();
+  private int pendingBytes = 0;
+  private boolean timerScheduled = false;
+  private long timerDueNanos = 0;
+  // Bumped whenever the pending batch is handed off, so timers armed for it go stale
+  private long timerGeneration = 0;
+  private int maxQueuedCount = DEFAULT_MAX_QUEUED_COUNT;
+  private int maxQueuedBytes = DEFAULT_MAX_QUEUED_BYTES;
+  private OverflowPolicy overflowPolicy = DEFAULT_OVERFLOW_POLICY;
+  private long queuedBytes = 0;
+  private int wakeups = 0;
+  // Payload sizes of all undelivered messages, oldest first, as a ring
+  private int[] sizes = new int[256];
+  private int sizesHead = 0;
+  private int queuedCount = 0;
+
+  public DeliveryBatcher(Scheduler scheduler, LinkStats stats, Sink sink) {
+    this.scheduler = scheduler;
+    this.stats = stats;
+    this.sink = sink;
+  }
+
+  /** Updates the batch limits. Takes effect for the next message. */
+  public void configure(int maxCount, int maxBytes, long maxDelayMs) {
+    this.maxCount = Math.max(1, maxCount);
+    this.maxBytes = Math.max(1, maxBytes);
+    this.maxDelayMs = Math.max(0, maxDelayMs);
+  }
+
+  /** Updates the queue budget and overflow policy. Waiting offers re-check the new limits. */
+  public void configureQueue(int maxQueuedCount, int maxQueuedBytes, OverflowPolicy policy) {
+    synchronized (lock) {
+      this.maxQueuedCount = Math.max(1, maxQueuedCount);
+      this.maxQueuedBytes = Math.max(1, maxQueuedBytes);
+      this.overflowPolicy = policy;
+      lock.notifyAll();
+    }
+  }
+
+  /**
+   * Lets offers blocked by {@link OverflowPolicy#BLOCK} through, over budget. Call when the
+   * connection closes so the reader thread can exit.
+   */
+  public void unblock() {
+    synchronized (lock) {
+      wakeups++;
+      lock.notifyAll();
+    }
+  }
+
+  /**
+   * Queues a message of {@code bytes} payload bytes for delivery. If the queue budget is used
+   * up, the overflow policy decides whether the message is dropped, older messages are, or
+   * the caller waits. Returns the number of messages, this one or older ones, that were
+   * dropped as a result and will never be delivered.
+   */
+  public int offer(Object message, int bytes) {
+    return offer(message, bytes, null);
+  }
+
+  /**
+   * Like {@link #offer(Object, int)}, but if the batch being collected already holds a message
+   * with the same non-null {@code key}, {@code message} takes its place instead. The message
+   * replaced is never delivered, and counts as one dropped in the return value.
+   */
+  public int offer(Object message, int bytes, Object key) {
+    boolean postNow = false;
+    boolean postTimer = false;
+    long generation = 0;
+    int dropped;
+
+    synchronized (lock) {
+      if (key != null && replace(key, message, bytes)) {
+        stats.increment(LinkStats.FRAMES_CONFLATED);
+        return 1;
+      }
+      dropped = makeRoom(bytes);
+      if (dropped < 0) {
+        stats.increment(LinkStats.DELIVERY_DROPPED);
+        return 1;
+      }
+      push(bytes);
+      if (pending.messages.isEmpty()) {
+        pending.firstNanos = System.nanoTime();
+      }
+      pending.messages.add(message);
+      pendingBytes += bytes;
+      if (key != null) {
+        if (pending.keySlots == null) {
+          pending.keySlots = new HashMap<>();
+        }
+        pending.keySlots.put(key, pending.messages.size() - 1);
+      }
+
+      if (pending.messages.size() >= maxCount || pendingBytes >= maxBytes) {
+        // Seal the batch and flush without waiting for the timer
+        seal(System.nanoTime());
+        postNow = true;
+      } else if (!timerScheduled) {
+        timerScheduled = true;
+        timerDueNanos = System.nanoTime() + maxDelayMs * 1_000_000L;
+        generation = timerGeneration;
+        postTimer = true;
+      }
+    }
+
+    if (postNow) {
+      scheduler.post(flushTask);
+    } else if (postTimer) {
+      long delay = maxDelayMs;
+      long timer = generation;
+      Runnable timerTask = () -> flush(timer);
+      if (delay == 0) {
+        scheduler.post(timerTask);
+      } else {
+        scheduler.postDelayed(timerTask, delay);
+      }
+    }
+    return dropped;
+  }
+
+  /**
+   * Queues {@code messages}, of {@code messageSizes[i]} payload bytes each, for delivery as a
+   * single batch after everything already queued. Bypasses the batch limits, and the queue budget
+   * too: this never drops or blocks, so it is safe to call from the delivery thread.
+   */
+  public void offerAll(List<Object> messages, int[] messageSizes) {
+    if (messages.isEmpty()) {
+      return;
+    }
+    long now = System.nanoTime();
+    synchronized (lock) {
+      for (int size : messageSizes) {
+        push(size);
+      }
+      if (!pending.messages.isEmpty()) {
+        seal(now);
+      }
+      Batch batch = new Batch();
+      batch.messages.addAll(messages);
+      batch.firstNanos = now;
+      batch.sealedNanos = now;
+      ready.add(batch);
+    }
+    scheduler.post(flushTask);
+  }
+
+  /** Number of messages waiting for delivery. */
+  public int getPendingCount() {
+    synchronized (lock) {
+      return queuedCount;
+    }
+  }
+
+  /** Moves the pending batch to the ready queue. Called with the lock held. */
+  private void seal(long now) {
+    pending.sealedNanos = now;
+    ready.add(pending);
+    pending = new Batch();
+    pendingBytes = 0;
+    timerScheduled = false;
+    timerGeneration++;
+  }
+
+  /**
+   * Applies the overflow policy until a message of {@code bytes} fits the queue budget.
+   * Returns the number of older messages dropped to make room, or -1 if the message itself
+   * is to be dropped. Called with the lock held.
+   */
+  private int makeRoom(int bytes) {
+    boolean blocked = false;
+    int seen = wakeups;
+    int dropped = 0;
+    while (queuedCount > 0
+        && (queuedCount >= maxQueuedCount || queuedBytes + bytes > maxQueuedBytes)) {
+      switch (overflowPolicy) {
+        case DROP_NEWEST:
+          return -1;
+        case DROP_OLDEST:
+          dropOldest();
+          stats.increment(LinkStats.DELIVERY_DROPPED);
+          dropped++;
+          break;
+        default:
+          if (wakeups != seen) {
+            return dropped;
+          }
+          if (!blocked) {
+            blocked = true;
+            stats.increment(LinkStats.READER_BLOCKED);
+          }
+          try {
+            lock.wait();
+          } catch (InterruptedException e) {
+            // Let the message through; the caller sees the interrupt flag
+            Thread.currentThread().interrupt();
+            return dropped;
+          }
+          break;
+      }
+    }
+    return dropped;
+  }
+
+  /**
+   * Swaps {@code message} in for the pending message with the same key. Returns false if the
+   * pending batch has no such message. Called with the lock held.
+   */
+  private boolean replace(Object key, Object message, int bytes) {
+    Integer slot = pending.keySlots != null ? pending.keySlots.get(key) : null;
+    if (slot == null) {
+      return false;
+    }
+    pending.messages.set(slot, message);
+    // The pending batch is always the newest part of the size ring
+    int index = (sizesHead + queuedCount - pending.messages.size() + slot) % sizes.length;
+    int delta = bytes - sizes[index];
+    sizes[index] = bytes;
+    queuedBytes += delta;
+    pendingBytes += delta;
+    return true;
+  }
+
+  /** Removes the oldest undelivered message. Called with the lock held. */
+  private void dropOldest() {
+    Batch batch = ready.isEmpty() ? pending : ready.peek();
+    batch.messages.remove(0);
+    int size = pop();
+    if (batch.keySlots != null) {
+      Iterator<Map.Entry<Object, Integer>> slots = batch.keySlots.entrySet().iterator();
+      while (slots.hasNext()) {
+        Map.Entry<Object, Integer> slot = slots.next();
+        if (slot.getValue() == 0) {
+          slots.remove();
+        } else {
+          slot.setValue(slot.getValue() - 1);
+        }
+      }
+    }
+    if (batch == pending) {
+      pendingBytes -= size;
+    } else if (batch.messages.isEmpty()) {
+      ready.poll();
+    }
+  }
+
+  private void push(int size) {
+    if (queuedCount == sizes.length) {
+      int[] grown = new int[sizes.length * 2];
+      for (int i = 0; i < queuedCount; i++) {
+        grown[i] = sizes[(sizesHead + i) % sizes.length];
+      }
+      sizes = grown;
+      sizesHead = 0;
+    }
+    sizes[(sizesHead + queuedCount) % sizes.length] = size;
+    queuedCount++;
+    queuedBytes += size;
+  }
+
+  private int pop() {
+    int size = sizes[sizesHead];
+    sizesHead = (sizesHead + 1) % sizes.length;
+    queuedCount--;
+    queuedBytes -= size;
+    return size;
+  }
+
+  /**
+   * Delivers the ready batches, then the pending batch if {@code timer} is the generation of
+   * its outstanding timer. A timer armed for a batch that was since sealed by size is stale
+   * and leaves the pending batch alone.
+   */
+  private void flush(long timer) {
+    while (true) {
+      Batch batch;
+      long now = System.nanoTime();
+      synchronized (lock) {
+        batch = ready.poll();
+        if (batch == null) {
+          if (!timerScheduled || timer != timerGeneration) {
+            return;
+          }
+          if (pending.messages.isEmpty()) {
+            timerScheduled = false;
+            return;
+          }
+          // Unsealed batch: handed off when its timer fell due
+          batch = pending;
+          long sealedNanos = Math.min(now, Math.max(batch.firstNanos, timerDueNanos));
+          seal(sealedNanos);
+          ready.poll();
+        }
+        for (int i = batch.messages.size(); i > 0; i--) {
+          pop();
+        }
+        lock.notifyAll();
+      }
+      stats.deliveryQueueLatency.record(batch.sealedNanos - batch.firstNanos);
+      stats.mainThreadHopLatency.record(now - batch.sealedNanos);
+      AccessoryTrace.counter(AccessoryTrace.BATCH_SIZE, batch.messages.size());
+      boolean traced = AccessoryTrace.begin(AccessoryTrace.DELIVER);
+      try {
+        sink.deliver(batch.messages);
+      } finally {
+        if (traced) {
+          AccessoryTrace.end();
+        }
+      }
+    }
+  }
+}
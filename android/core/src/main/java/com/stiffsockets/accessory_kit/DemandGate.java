@@ -0,0 +1,132 @@
+/**
+ * @file: DemandGate.java
+ * @package: accessory_kit
+ * @created Date: Mon Dec 2025
+ * @author: Nicholas J. Caruso
+ *
+ * @last Modified: Mon Dec 29 2025
+ * @modified By: Nicholas J. Caruso
+ *
+ * @version: 1.1.31
+ *
+ */
+
+
+
+
+
+package com.stiffsockets.accessory_kit;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+
+/**
+ * DemandGate
+ *
+ * Consumer-granted credit between Dart and the reader thread. While enabled, each decoded
+ * frame uses one unit of demand, and the reader waits for more before its next read once
+ * demand runs out. Nothing is read from the accessory in the meantime, so the host's writes
+ * stall in the kernel instead of piling up in this process.
+ *
+ * Demand is checked between reads, not between frames: one read can overshoot it by the
+ * frames that read happened to contain, which leaves the balance negative until the next
+ * grant. While disabled, the gate never holds the reader.
+ *
+ * Only frames that reach Dart may keep their unit: Dart tops demand up per message it
+ * receives, so a frame that is charged and then dropped (by an overflow policy or replay
+ * eviction) must be {@link #refund refunded}, or the balance drains a little with every drop
+ * until the reader waits for a grant that never comes.
+ */
+public final class DemandGate {
+  private final Object lock = new Object();
+  private final AtomicLong demand = new AtomicLong();
+  private volatile boolean enabled = false;
+
+  // Written under lock
+  private volatile int wakeups = 0;
+
+  /** Turns demand tracking on or off. Either way the balance starts from zero. */
+  public void setEnabled(boolean enabled) {
+    synchronized (lock) {
+      this.enabled = enabled;
+      demand.set(0);
+      lock.notifyAll();
+    }
+  }
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  /** Allows {@code count} more frames. */
+  public void grant(long count) {
+    if (count <= 0) {
+      return;
+    }
+    demand.addAndGet(count);
+    synchronized (lock) {
+      lock.notifyAll();
+    }
+  }
+
+  /** Uses demand for {@code count} decoded frames. Called on the reader thread. */
+  public void consume(int count) {
+    if (enabled) {
+      demand.addAndGet(-count);
+    }
+  }
+
+  /** Returns demand used by {@code count} frames that were dropped before reaching Dart. */
+  public void refund(int count) {
+    if (enabled && count > 0) {
+      grant(count);
+    }
+  }
+
+  /** Remaining demand; negative when the last read overshot it. */
+  public long getDemand() {
+    return demand.get();
+  }
+
+  /**
+   * Counts {@link #unblock} calls. A caller that reads it before checking its own stop flag
+   * and passes it to {@link #awaitDemand(int)} cannot miss an unblock made in between.
+   */
+  public int generation() {
+    return wakeups;
+  }
+
+  /**
+   * Waits until there is demand, the gate is disabled, or {@link #unblock} is called. Returns
+   * true if the caller had to wait.
+   */
+  public boolean awaitDemand() throws InterruptedException {
+    return awaitDemand(generation());
+  }
+
+  /**
+   * Like {@link #awaitDemand()}, but also returns at once if {@link #unblock} was called
+   * since {@code generation} was read.
+   */
+  public boolean awaitDemand(int generation) throws InterruptedException {
+    if (!enabled || demand.get() > 0 || wakeups != generation) {
+      return false;
+    }
+    synchronized (lock) {
+      boolean waited = false;
+      while (enabled && demand.get() <= 0 && wakeups == generation) {
+        waited = true;
+        lock.wait();
+      }
+      return waited;
+    }
+  }
+
+  /** Releases a reader waiting for demand, e.g. so it can see it was stopped. */
+  public void unblock() {
+    synchronized (lock) {
+      wakeups++;
+      lock.notifyAll();
+    }
+  }
+}
@@ -0,0 +1,344 @@
+/**
+ * @file: FrameDecoder.java
+ * @package: accessory_kit
+ * @created Date: Mon Dec 2025
+ * @author: Nicholas J. Caruso
+ *
+ * @last Modified: Mon Dec 29 2025
+ * @modified By: Nicholas J. Caruso
+ *
+ * @version: 1.1.31
+ *
+ */
+
+
+
+
+
+package com.stiffsockets.accessory_kit;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * FrameDecoder
+ *
+ * Incremental decoder for the SOH + Length (2 bytes, big-endian) + Data + EOT wire format.
+ * Frames that lie entirely inside an input chunk are validated in place: SOH is found with a
+ * word-at-a-time scan, the length is read directly and the EOT is checked before any payload
+ * byte is touched. A frame that spans chunks is collected in a window taken from a
+ * {@link PayloadPool}, so chunks may be split anywhere.
+ *
+ * Payloads reach the listener as byte-array ranges. For heap buffers that range is the input
+ * array itself, so in-chunk frames are handed over without a copy. A direct buffer has no
+ * array to point into, so each in-chunk payload is copied once into a pooled array before the
+ * listener sees it; the direct buffer only saves the copy between the kernel and the scan.
+ *
+ * Resync: a header with an invalid length or a frame without its EOT was a false SOH, so
+ * scanning resumes at the byte after that SOH rather than after the bytes it claimed. Good
+ * frames that started inside the claimed region come back immediately. The scan position
+ * only moves forward and every candidate is checked in constant time, so decode time stays
+ * linear in the input however the stream is corrupted. Bytes that end up in no frame are
+ * reported through {@link Listener#onBytesSkipped}.
+ *
+ * Not thread-safe; a decoder belongs to the reader thread of a single connection.
+ */
+public final class FrameDecoder {
+  // Protocol constants
+  public static final byte SOH = 0x01;  // Start of Header
+  public static final byte EOT = 0x04;  // End of Transmission
+
+  /** Receives decoder output. Called on the thread that calls {@link #decode}. */
+  public interface Listener {
+    /**
+     * A complete frame was decoded. The payload is {@code length} bytes of {@code buffer}
+     * starting at {@code offset}; the buffer is reused after this method returns, so the
+     * payload must be copied if it is kept.
+     */
+    void onFrame(byte[] buffer, int offset, int length);
+
+    /** A length field of zero or above the decoder's maximum was read. */
+    void onInvalidLength(int length);
+
+    /** The byte following the payload was not EOT. */
+    void onInvalidEot(byte b);
+
+    /** {@code count} more input bytes were discarded while looking for a frame. */
+    void onBytesSkipped(int count);
+  }
+
+  private static final int HEADER_SIZE = 3;
+  private static final int FRAME_OVERHEAD = 4;
+
+  // SWAR constants for finding an SOH byte in a 64-bit word
+  private static final long SOH_BYTES = 0x0101010101010101L;
+  private static final long LOW_BITS = 0x7F7F7F7F7F7F7F7FL;
+
+  private final Listener listener;
+  private final int maxLength;
+  private final PayloadPool pool;
+
+  // Bytes of the frame being collected across chunks; window[windowStart] is its SOH.
+  // Null while no frame spans chunks.
+  private byte[] window;
+  private int windowStart = 0;
+  private int windowEnd = 0;
+
+  // View of the last array passed to decode(byte[], int, int)
+  private byte[] wrappedArray;
+  private ByteBuffer wrapped;
+
+  // Skipped bytes = consumed - framed - still in the window
+  private long consumed = 0;
+  private long framed = 0;
+  private long skippedReported = 0;
+
+  // Bytes scanned, copied or compacted so far, plus one per candidate header
+  private long work = 0;
+
+  public FrameDecoder(int maxLength, PayloadPool pool, Listener listener) {
+    if (maxLength <= 0 || maxLength > 0xFFFF) {
+      throw new IllegalArgumentException("maxLength must be in 1..65535: " + maxLength);
+    }
+    this.maxLength = maxLength;
+    this.pool = pool;
+    this.listener = listener;
+  }
+
+  /**
+   * Bytes this decoder has scanned, copied or compacted, plus one per candidate header. Tests
+   * use it to check that the work per input byte stays bounded.
+   */
+  long work() {
+    return work;
+  }
+
+  /** Drops any partial frame and waits for the next SOH. */
+  public void reset() {
+    releaseWindow();
+    consumed = framed + skippedReported;
+  }
+
+  /** Feeds {@code count} bytes of {@code src}, starting at {@code offset}, into the decoder. */
+  public void decode(byte[] src, int offset, int count) {
+    if (src != wrappedArray) {
+      wrapped = ByteBuffer.wrap(src);
+      wrappedArray = src;
+    }
+    wrapped.clear();
+    wrapped.limit(offset + count).position(offset);
+    decode(wrapped);
+  }
+
+  /**
+   * Feeds the remaining bytes of {@code src} into the decoder and consumes them. Heap and
+   * direct buffers are both scanned in place; payloads of direct buffers are copied into a
+   * pooled array before they are handed to the listener, which copies them again if it keeps
+   * them.
+   */
+  public void decode(ByteBuffer src) {
+    int pos = src.position();
+    final int end = src.limit();
+    consumed += end - pos;
+
+    if (window != null) {
+      pos = feedWindow(src, pos, end);
+    }
+
+    final boolean bigEndian = src.order() == ByteOrder.BIG_ENDIAN;
+    while (pos < end) {
+      int soh = findSoh(src, pos, end, bigEndian);
+      work += (soh < 0 ? end : soh + 1) - pos;
+      if (soh < 0) {
+        break;
+      }
+
+      if (end - soh < HEADER_SIZE) {
+        stash(src, soh, end, HEADER_SIZE);
+        break;
+      }
+
+      int length = ((src.get(soh + 1) & 0xFF) << 8) | (src.get(soh + 2) & 0xFF);
+      if (length == 0 || length > maxLength) {
+        listener.onInvalidLength(length);
+        pos = soh + 1;
+        continue;
+      }
+
+      int eot = soh + HEADER_SIZE + length;
+      if (eot >= end) {
+        stash(src, soh, end, length + FRAME_OVERHEAD);
+        break;
+      }
+
+      byte b = src.get(eot);
+      if (b == EOT) {
+        emit(src, soh + HEADER_SIZE, length);
+        pos = eot + 1;
+      } else {
+        // False SOH; look again from the byte after it
+        listener.onInvalidEot(b);
+        pos = soh + 1;
+      }
+    }
+
+    src.position(end);
+    reportSkipped();
+  }
+
+  /**
+   * Completes frames in the window with bytes from {@code src}. Only the bytes the current
+   * frame still needs are taken, so the window never runs ahead of the input. Returns the
+   * position in {@code src} to continue from; the window is released once no frame spans
+   * the chunk boundary any more.
+   */
+  private int feedWindow(ByteBuffer src, int pos, int end) {
+    while (window != null) {
+      int have = windowEnd - windowStart;
+      if (have < HEADER_SIZE) {
+        pos = append(src, pos, Math.min(HEADER_SIZE - have, end - pos));
+        if (windowEnd - windowStart < HEADER_SIZE) {
+          return pos;
+        }
+      }
+
+      int length = ((window[windowStart + 1] & 0xFF) << 8) | (window[windowStart + 2] & 0xFF);
+      if (length == 0 || length > maxLength) {
+        listener.onInvalidLength(length);
+        rescanWindow(windowStart + 1);
+        continue;
+      }
+
+      // append() may compact the window, so measure from windowStart afterwards
+      int frameSize = length + FRAME_OVERHEAD;
+      if (windowEnd - windowStart < frameSize) {
+        pos = append(src, pos, Math.min(frameSize - (windowEnd - windowStart), end - pos));
+        if (windowEnd - windowStart < frameSize) {
+          return pos;
+        }
+      }
+
+      int frameEnd = windowStart + frameSize;
+      byte b = window[frameEnd - 1];
+      if (b == EOT) {
+        framed += length + FRAME_OVERHEAD;
+        listener.onFrame(window, windowStart + HEADER_SIZE, length);
+        rescanWindow(frameEnd);
+      } else {
+        listener.onInvalidEot(b);
+        rescanWindow(windowStart + 1);
+      }
+    }
+    return pos;
+  }
+
+  /** Moves the window to the next SOH at or after {@code from}, or releases it. */
+  private void rescanWindow(int from) {
+    for (int i = from; i < windowEnd; i++) {
+      if (window[i] == SOH) {
+        work += i + 1 - from;
+        windowStart = i;
+        return;
+      }
+    }
+    work += windowEnd - from;
+    releaseWindow();
+  }
+
+  /** Starts a window with the partial frame {@code src[soh, end)}. */
+  private void stash(ByteBuffer src, int soh, int end, int frameSize) {
+    window = pool.acquire(frameSize);
+    windowStart = 0;
+    windowEnd = 0;
+    append(src, soh, end - soh);
+  }
+
+  /** Appends {@code n} bytes of {@code src} at {@code pos} to the window. */
+  private int append(ByteBuffer src, int pos, int n) {
+    if (windowEnd + n > window.length) {
+      makeRoom(n);
+    }
+    src.position(pos);
+    src.get(window, windowEnd, n);
+    windowEnd += n;
+    work += n;
+    return pos + n;
+  }
+
+  /**
+   * Compacts the window, moving to a larger pooled array if the live bytes would fill more
+   * than half of it. Keeping at least half free bounds the copying to a constant per byte.
+   */
+  private void makeRoom(int n) {
+    int live = windowEnd - windowStart;
+    int need = live + n;
+    byte[] target = window;
+    if (need * 2 > window.length && window.length < PayloadPool.MAX_SIZE) {
+      target = pool.acquire(Math.min(need * 2, PayloadPool.MAX_SIZE));
+    }
+    System.arraycopy(window, windowStart, target, 0, live);
+    work += live;
+    if (target != window) {
+      pool.release(window);
+      window = target;
+    }
+    windowStart = 0;
+    windowEnd = live;
+  }
+
+  private void releaseWindow() {
+    if (window != null) {
+      pool.release(window);
+      window = null;
+    }
+    windowStart = 0;
+    windowEnd = 0;
+  }
+
+  private void emit(ByteBuffer src, int offset, int length) {
+    framed += length + FRAME_OVERHEAD;
+    if (src.hasArray()) {
+      listener.onFrame(src.array(), src.arrayOffset() + offset, length);
+      return;
+    }
+    byte[] payload = pool.acquire(length);
+    src.position(offset);
+    src.get(payload, 0, length);
+    work += length;
+    listener.onFrame(payload, 0, length);
+    pool.release(payload);
+  }
+
+  private void reportSkipped() {
+    long pending = window != null ? windowEnd - windowStart : 0;
+    long skipped = consumed - framed - pending;
+    if (skipped > skippedReported) {
+      listener.onBytesSkipped((int) (skipped - skippedReported));
+      skippedReported = skipped;
+    }
+  }
+
+  /** Index of the first SOH in {@code src[from, end)}, or -1. Scans eight bytes at a time. */
+  private static int findSoh(ByteBuffer src, int from, int end, boolean bigEndian) {
+    int i = from;
+    if (i < end && src.get(i) == SOH) {
+      // Back-to-back frames: the next SOH is usually right here
+      return i;
+    }
+    for (; i + 8 <= end; i += 8) {
+      long x = src.getLong(i) ^ SOH_BYTES;
+      // High bit set exactly in the bytes of x that are zero
+      long zeros = ~(((x & LOW_BITS) + LOW_BITS) | x | LOW_BITS);
+      if (zeros != 0) {
+        int bit = bigEndian ? Long.numberOfLeadingZeros(zeros) : Long.numberOfTrailingZeros(zeros);
+        return i + (bit >>> 3);
+      }
+    }
+    for (; i < end; i++) {
+      if (src.get(i) == SOH) {
+        return i;
+      }
+    }
+    return -1;
+  }
+}
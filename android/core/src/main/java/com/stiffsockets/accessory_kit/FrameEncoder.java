@@ -0,0 +1,138 @@
+/**
+ * @file: FrameEncoder.java
+ * @package: accessory_kit
+ * @created Date: Mon Dec 2025
+ * @author: Nicholas J. Caruso
+ *
+ * @last Modified: Mon Dec 29 2025
+ * @modified By: Nicholas J. Caruso
+ *
+ * @version: 1.1.31
+ *
+ */
+
+
+
+
+
+package com.stiffsockets.accessory_kit;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+
+
+/**
+ * FrameEncoder
+ *
+ * Writes SOH + Length (2 bytes, big-endian) + Data + EOT straight into a caller-owned buffer.
+ * Strings are encoded as UTF-8 without intermediate arrays: ASCII runs are copied char by char
+ * and the first non-ASCII char hands the rest of the string to a cached CharsetEncoder through
+ * a reused char buffer. Once warm, encoding does not allocate.
+ *
+ * Not thread-safe; an encoder belongs to the writer thread of a single connection.
+ */
+public final class FrameEncoder {
+  public static final int MAX_PAYLOAD_SIZE = 65535;
+  public static final int FRAME_OVERHEAD = 4;
+
+  private static final int HEADER_SIZE = 3;
+
+  private final CharsetEncoder utf8 = StandardCharsets.UTF_8.newEncoder()
+      .onMalformedInput(CodingErrorAction.REPLACE)
+      .onUnmappableCharacter(CodingErrorAction.REPLACE);
+  private CharBuffer chars = CharBuffer.allocate(0);
+
+  /**
+   * Encodes {@code message} as a frame into {@code dst}, which must hold at least
+   * MAX_PAYLOAD_SIZE + FRAME_OVERHEAD bytes. On success {@code dst} is flipped for writing and
+   * the payload length is returned; -1 means the UTF-8 form exceeds MAX_PAYLOAD_SIZE.
+   */
+  public int encode(String message, ByteBuffer dst) {
+    final int length = message.length();
+    dst.clear();
+    dst.position(HEADER_SIZE);
+    dst.limit(HEADER_SIZE + MAX_PAYLOAD_SIZE);
+
+    // ASCII fast path
+    int i = 0;
+    if (dst.hasArray()) {
+      final byte[] array = dst.array();
+      final int base = dst.arrayOffset() + HEADER_SIZE;
+      final int max = Math.min(length, MAX_PAYLOAD_SIZE);
+      for (; i < max; i++) {
+        char c = message.charAt(i);
+        if (c >= 0x80) {
+          break;
+        }
+        array[base + i] = (byte) c;
+      }
+    } else {
+      final int max = Math.min(length, MAX_PAYLOAD_SIZE);
+      for (; i < max; i++) {
+        char c = message.charAt(i);
+        if (c >= 0x80) {
+          break;
+        }
+        dst.put(HEADER_SIZE + i, (byte) c);
+      }
+    }
+    dst.position(HEADER_SIZE + i);
+
+    if (i < length) {
+      if (!encodeSlow(message, i, dst)) {
+        return -1;
+      }
+    }
+
+    int payloadLength = dst.position() - HEADER_SIZE;
+    finish(dst, payloadLength);
+    return payloadLength;
+  }
+
+  /** Encodes {@code length} bytes of {@code data} as a frame into {@code dst}. See above. */
+  public int encode(byte[] data, int offset, int length, ByteBuffer dst) {
+    if (length > MAX_PAYLOAD_SIZE) {
+      return -1;
+    }
+    dst.clear();
+    dst.position(HEADER_SIZE);
+    dst.put(data, offset, length);
+    finish(dst, length);
+    return length;
+  }
+
+  private boolean encodeSlow(String message, int from, ByteBuffer dst) {
+    final int remaining = message.length() - from;
+    if (remaining > MAX_PAYLOAD_SIZE) {
+      // Every char encodes to at least one byte
+      return false;
+    }
+    if (chars.capacity() < remaining) {
+      chars = CharBuffer.allocate(Math.max(remaining, Math.min(chars.capacity() * 2, MAX_PAYLOAD_SIZE)));
+    }
+    chars.clear();
+    message.getChars(from, message.length(), chars.array(), 0);
+    chars.limit(remaining);
+
+    utf8.reset();
+    CoderResult result = utf8.encode(chars, dst, true);
+    if (result.isOverflow()) {
+      return false;
+    }
+    result = utf8.flush(dst);
+    return !result.isOverflow();
+  }
+
+  private static void finish(ByteBuffer dst, int payloadLength) {
+    dst.limit(dst.capacity());
+    dst.put(0, FrameDecoder.SOH);
+    dst.put(1, (byte) (payloadLength >> 8));
+    dst.put(2, (byte) payloadLength);
+    dst.put(FrameDecoder.EOT);
+    dst.flip();
+  }
+}
@@ -0,0 +1,171 @@
+/**
+ * @file: FrameReader.java
+ * @package: accessory_kit
+ * @created Date: Mon Dec 2025
+ * @author: Nicholas J. Caruso
+ *
+ * @last Modified: Mon Dec 29 2025
+ * @modified By: Nicholas J. Caruso
+ *
+ * @version: 1.1.31
+ *
+ */
+
+
+
+
+
+package com.stiffsockets.accessory_kit;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+
+/**
+ * FrameReader
+ *
+ * Reader loop for a single connection. Pulls chunks from the accessory through an
+ * {@link IoEngine} and feeds the read buffer straight to a {@link FrameDecoder}.
+ *
+ * In {@link Mode#BLOCKING} the thread stays parked inside read() until the host sends data,
+ * so it only wakes up for real traffic, and an end-of-stream (-1) is reported as a clean
+ * disconnect. {@link Mode#POLLING} keeps the legacy behaviour of sleeping between empty reads.
+ *
+ * Before each read the loop waits on the {@link DemandGate}, so with demand mode on, the
+ * reader only pulls from the accessory while the consumer has asked for more.
+ */
+public final class FrameReader implements Runnable {
+
+  /** How the reader waits for data. */
+  public enum Mode {
+    BLOCKING, POLLING
+  }
+
+  /** Receives reader lifecycle events. Called on the reader thread. */
+  public interface Callback {
+    /** The host closed the link (read returned -1). The reader has stopped. */
+    void onEndOfStream(FrameReader reader);
+
+    /** A read failed while the reader was running. The reader retries after a pause. */
+    void onReadError(IOException e);
+  }
+
+  private static final long ERROR_RETRY_MS = 1000;
+
+  private final IoEngine ioEngine;
+  private final FrameDecoder decoder;
+  private final Mode mode;
+  private final long pollIntervalMs;
+  private final Callback callback;
+  private final ReadBufferSizer sizer;
+  private final LinkStats stats;
+  private final DemandGate demand;
+  private final AtomicBoolean running = new AtomicBoolean(true);
+  private volatile ByteBuffer buffer;
+
+  public FrameReader(IoEngine ioEngine, FrameDecoder decoder, Mode mode,
+      long pollIntervalMs, ReadBufferSizer sizer, LinkStats stats, DemandGate demand, Callback callback) {
+    this.ioEngine = ioEngine;
+    this.decoder = decoder;
+    this.mode = mode;
+    this.pollIntervalMs = pollIntervalMs;
+    this.callback = callback;
+    this.sizer = sizer;
+    this.stats = stats;
+    this.demand = demand;
+    this.buffer = ioEngine.allocate(sizer.size());
+  }
+
+  /** Asks the loop to exit. Close the underlying stream to unblock a pending read. */
+  public void stop() {
+    running.set(false);
+    demand.unblock();
+  }
+
+  public boolean isRunning() {
+    return running.get();
+  }
+
+  /** Current read size in bytes. */
+  public int getBufferSize() {
+    return buffer.capacity();
+  }
+
+  @Override
+  public void run() {
+    // The generation is read before running, so a stop() between the two still wakes the gate
+    for (int generation = demand.generation(); running.get(); generation = demand.generation()) {
+      try {
+        if (demand.awaitDemand(generation)) {
+          stats.increment(LinkStats.DEMAND_WAITS);
+          continue;
+        }
+        buffer.clear();
+        boolean traced = AccessoryTrace.begin(AccessoryTrace.READ);
+        long readStart = System.nanoTime();
+        int bytesRead;
+        try {
+          bytesRead = ioEngine.read(buffer);
+        } finally {
+          if (traced) {
+            AccessoryTrace.end();
+          }
+        }
+        long readEnd = System.nanoTime();
+        stats.increment(LinkStats.READ_CALLS);
+
+        if (!running.get()) {
+          // Stopped while parked in read(); what arrived belongs to a closed connection
+          break;
+        }
+
+        if (bytesRead < 0) {
+          // Host closed the link
+          if (running.getAndSet(false)) {
+            callback.onEndOfStream(this);
+          }
+          break;
+        }
+
+        if (bytesRead == 0) {
+          // Zero-length packet; nothing to decode
+          if (mode == Mode.POLLING) {
+            Thread.sleep(pollIntervalMs);
+          }
+          continue;
+        }
+
+        stats.add(LinkStats.WIRE_BYTES_READ, bytesRead);
+        stats.readWaitLatency.record(readEnd - readStart);
+        AccessoryTrace.counter(AccessoryTrace.READ_BYTES, bytesRead);
+        buffer.flip();
+        traced = AccessoryTrace.begin(AccessoryTrace.DECODE);
+        decoder.decode(buffer);
+        if (traced) {
+          AccessoryTrace.end();
+        }
+        stats.decodeLatency.record(System.nanoTime() - readEnd);
+
+        if (sizer.onRead(bytesRead)) {
+          buffer = ioEngine.allocate(sizer.size());
+        }
+      } catch (IOException e) {
+        if (running.get()) {
+          callback.onReadError(e);
+
+          // Allow time for error recovery
+          try {
+            Thread.sleep(ERROR_RETRY_MS);
+          } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            break;
+          }
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        break;
+      }
+    }
+  }
+}
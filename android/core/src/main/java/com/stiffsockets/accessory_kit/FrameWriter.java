@@ -0,0 +1,241 @@
+/**
+ * @file: FrameWriter.java
+ * @package: accessory_kit
+ * @created Date: Mon Dec 2025
+ * @author: Nicholas J. Caruso
+ *
+ * @last Modified: Mon Dec 29 2025
+ * @modified By: Nicholas J. Caruso
+ *
+ * @version: 1.1.31
+ *
+ */
+
+
+
+
+
+package com.stiffsockets.accessory_kit;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.locks.LockSupport;
+
+
+/**
+ * FrameWriter
+ *
+ * Single writer for a connection. Any thread may {@link #enqueue} a payload; the writer thread
+ * drains an {@link MpscQueue} in FIFO order, frames each payload with a {@link FrameEncoder}
+ * into one reusable buffer of the engine's type and writes it through the connection's
+ * {@link IoEngine}. Callers never block: enqueue fails when the queue is full or the writer
+ * has stopped.
+ *
+ * The writer parks when the queue is empty and producers only unpark it when it is parked.
+ * Request holders are recycled, so a steady stream of sends produces no garbage of its own.
+ */
+public final class FrameWriter implements Runnable {
+
+  /** Receives write outcomes. Called on the writer thread. */
+  public interface Callback {
+    /** The request identified by {@code token} was written, or failed or was dropped. */
+    void onComplete(Object token, boolean success);
+
+    /** A write failed. */
+    void onWriteError(IOException e);
+  }
+
+  public static final int DEFAULT_QUEUE_CAPACITY = 1024;
+
+  private static final class SendRequest {
+    Object payload;  // String or byte[]
+    Object token;
+    long enqueuedNanos;
+  }
+
+  private final IoEngine ioEngine;
+  private final Callback callback;
+  private final LinkStats stats;
+  private final MpscQueue<SendRequest> queue;
+  private final FrameEncoder encoder = new FrameEncoder();
+  private final ByteBuffer frameBuffer;
+
+  // Recycled request holders, guarded by itself
+  private final SendRequest[] free;
+  private int freeCount = 0;
+
+  private volatile boolean running = true;
+  private volatile boolean terminated = false;
+  private volatile boolean parked = false;
+  private volatile Thread writerThread;
+
+  public FrameWriter(IoEngine ioEngine, int queueCapacity, LinkStats stats, Callback callback) {
+    this.ioEngine = ioEngine;
+    this.callback = callback;
+    this.stats = stats;
+    this.queue = new MpscQueue<>(queueCapacity);
+    this.frameBuffer = ioEngine.allocate(FrameEncoder.MAX_PAYLOAD_SIZE + FrameEncoder.FRAME_OVERHEAD);
+    this.free = new SendRequest[queue.capacity()];
+  }
+
+  /**
+   * Queues a String (sent as UTF-8) or byte[] payload. Returns false without blocking if the
+   * queue is full or the writer has stopped; {@code token} is then not reported. Either way
+   * the send counts as failed, and a full queue is also counted on its own.
+   */
+  public boolean enqueue(Object payload, Object token) {
+    if (!running) {
+      stats.increment(LinkStats.SEND_FAILURES);
+      return false;
+    }
+    SendRequest request = obtain(payload, token);
+    if (!queue.offer(request)) {
+      recycle(request);
+      stats.increment(LinkStats.SEND_FAILURES);
+      stats.increment(LinkStats.SEND_QUEUE_FULL);
+      return false;
+    }
+    if (parked) {
+      LockSupport.unpark(writerThread);
+    }
+    if (terminated) {
+      // Raced with stop(); the writer thread is gone, so fail the request here
+      synchronized (queue) {
+        failPending();
+      }
+    }
+    return true;
+  }
+
+  /** Number of requests waiting to be written. */
+  public int getQueueDepth() {
+    return queue.size();
+  }
+
+  /** Whether the writer still accepts requests. */
+  public boolean isRunning() {
+    return running;
+  }
+
+  /** Stops the writer. Requests still queued complete with failure. */
+  public void stop() {
+    running = false;
+    Thread thread = writerThread;
+    if (thread != null) {
+      LockSupport.unpark(thread);
+    }
+  }
+
+  @Override
+  public void run() {
+    writerThread = Thread.currentThread();
+
+    while (running) {
+      SendRequest request = queue.poll();
+      if (request == null) {
+        if (queue.size() > 0) {
+          // A producer claimed a slot and is about to publish
+          Thread.yield();
+          continue;
+        }
+        parked = true;
+        if (queue.size() == 0 && running) {
+          LockSupport.park(this);
+        }
+        parked = false;
+        continue;
+      }
+
+      stats.sendQueueLatency.record(System.nanoTime() - request.enqueuedNanos);
+      Object token = request.token;
+      boolean success = write(request.payload);
+      recycle(request);
+      callback.onComplete(token, success);
+    }
+
+    // Fail whatever is left. Announce termination first: a producer whose offer lands after
+    // this drain then sees it and fails the request itself.
+    synchronized (queue) {
+      terminated = true;
+      failPending();
+    }
+  }
+
+  private void failPending() {
+    SendRequest request;
+    while ((request = queue.poll()) != null || queue.size() > 0) {
+      if (request != null) {
+        Object token = request.token;
+        recycle(request);
+        stats.increment(LinkStats.SEND_FAILURES);
+        callback.onComplete(token, false);
+      }
+    }
+  }
+
+  private SendRequest obtain(Object payload, Object token) {
+    SendRequest request = null;
+    synchronized (free) {
+      if (freeCount > 0) {
+        request = free[--freeCount];
+        free[freeCount] = null;
+      }
+    }
+    if (request == null) {
+      request = new SendRequest();
+    }
+    request.payload = payload;
+    request.token = token;
+    request.enqueuedNanos = System.nanoTime();
+    return request;
+  }
+
+  private void recycle(SendRequest request) {
+    request.payload = null;
+    request.token = null;
+    synchronized (free) {
+      if (freeCount < free.length) {
+        free[freeCount++] = request;
+      }
+    }
+  }
+
+  private boolean write(Object payload) {
+    AccessoryTrace.counter(AccessoryTrace.SEND_QUEUE_DEPTH, queue.size());
+
+    boolean traced = AccessoryTrace.begin(AccessoryTrace.ENCODE);
+    int length;
+    if (payload instanceof String) {
+      length = encoder.encode((String) payload, frameBuffer);
+    } else {
+      byte[] data = (byte[]) payload;
+      length = encoder.encode(data, 0, data.length, frameBuffer);
+    }
+    if (traced) {
+      AccessoryTrace.end();
+    }
+
+    if (length < 0) {
+      stats.increment(LinkStats.SEND_FAILURES);
+      return false;  // Too long for the 2-byte length field
+    }
+
+    traced = AccessoryTrace.begin(AccessoryTrace.WRITE);
+    try {
+      long writeStart = System.nanoTime();
+      ioEngine.write(frameBuffer);
+      stats.writeLatency.record(System.nanoTime() - writeStart);
+      stats.increment(LinkStats.FRAMES_SENT);
+      stats.add(LinkStats.BYTES_SENT, length);
+      return true;
+    } catch (IOException e) {
+      stats.increment(LinkStats.SEND_FAILURES);
+      callback.onWriteError(e);
+      return false;
+    } finally {
+      if (traced) {
+        AccessoryTrace.end();
+      }
+    }
+  }
+}
@@ -0,0 +1,244 @@
+/**
+ * @file: InboundPipeline.java
+ * @package: accessory_kit
+ * @created Date: Mon Dec 2025
+ * @author: Nicholas J. Caruso
+ *
+ * @last Modified: Mon Dec 29 2025
+ * @modified By: Nicholas J. Caruso
+ *
+ * @version: 1.1.31
+ *
+ */
+
+
+
+
+
+package com.stiffsockets.accessory_kit;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+
+/**
+ * InboundPipeline
+ *
+ * Receive side of a connection, between the {@link FrameDecoder} and the delivery batchers.
+ * Counts every decoded frame and decode error, charges each frame to the {@link DemandGate}, then
+ * hands each payload to the stream that wants
+ * it: raw copies to the bytes batcher, UTF-8 Strings to the message batcher. A payload is only
+ * decoded to a String while the message stream is listened to.
+ *
+ * A {@link TopicFilter} runs first: frames whose topic is not subscribed are counted as
+ * filtered and go no further, so they cost neither a copy nor a String decode.
+ *
+ * With a conflation {@link PayloadKey} set, each payload's key is taken from its bytes before
+ * any decode and passed to the batchers, which keep only the latest payload per key in a
+ * batch.
+ *
+ * Frames that arrive while neither stream is listened to are kept in a {@link ReplayBuffer}
+ * and handed, as one batch, to whichever stream starts listening first. Frames evicted from
+ * the replay buffer are counted as dropped.
+ *
+ * Every frame that passes the topic filter is charged one unit of demand, and every frame
+ * that is then dropped instead of delivered (evicted from replay, discarded by the message
+ * batcher's overflow policy, or replaced by a newer conflated message) is refunded, so only
+ * frames Dart actually receives use up demand. Demand follows the message stream while it is
+ * listened to, and the bytes stream otherwise. A BLOCK policy drops nothing, and just stalls
+ * the reader together with demand.
+ *
+ * Runs on the reader thread; the listening flags are flipped from the main thread. Flipping a
+ * flag drains the replay buffer under the same lock the reader takes to fill it, so replayed
+ * frames are always delivered ahead of newer ones.
+ */
+public final class InboundPipeline implements FrameDecoder.Listener {
+  private static final String TAG = "AccessoryKitUsb";
+
+  private final LinkStats stats;
+  private final DeliveryBatcher messageBatcher;
+  private final DeliveryBatcher bytesBatcher;
+  private final DemandGate demand;
+  private volatile boolean messagesListening = false;
+  private volatile boolean bytesListening = false;
+  private volatile PayloadKey conflationKey = null;
+  private final TopicFilter topics = new TopicFilter();
+
+  private final Object replayLock = new Object();
+  // Guarded by replayLock
+  private final ReplayBuffer replay = new ReplayBuffer();
+
+  public InboundPipeline(LinkStats stats, DeliveryBatcher messageBatcher,
+      DeliveryBatcher bytesBatcher, DemandGate demand) {
+    this.stats = stats;
+    this.messageBatcher = messageBatcher;
+    this.bytesBatcher = bytesBatcher;
+    this.demand = demand;
+  }
+
+  public void setMessagesListening(boolean listening) {
+    synchronized (replayLock) {
+      if (listening) {
+        replayTo(messageBatcher, true);
+      }
+      messagesListening = listening;
+    }
+  }
+
+  public void setBytesListening(boolean listening) {
+    synchronized (replayLock) {
+      if (listening) {
+        replayTo(bytesBatcher, false);
+      }
+      bytesListening = listening;
+    }
+  }
+
+  /** Hands everything in the replay buffer to {@code batcher} as one batch. */
+  private void replayTo(DeliveryBatcher batcher, boolean decode) {
+    List<byte[]> frames = replay.drain();
+    if (frames.isEmpty()) {
+      return;
+    }
+    List<Object> batch = new ArrayList<>(frames.size());
+    int[] sizes = new int[frames.size()];
+    for (int i = 0; i < sizes.length; i++) {
+      byte[] frame = frames.get(i);
+      batch.add(decode ? new String(frame, StandardCharsets.UTF_8) : frame);
+      sizes[i] = frame.length;
+    }
+    batcher.offerAll(batch, sizes);
+    stats.add(LinkStats.FRAMES_REPLAYED, frames.size());
+  }
+
+  /** Sets how payloads are keyed for latest-value conflation; null turns conflation off. */
+  public void setConflationKey(PayloadKey key) {
+    conflationKey = key;
+  }
+
+  /** Sets where a payload's topic sits; null delivers every frame regardless of topic. */
+  public void setTopicKey(PayloadKey key) {
+    topics.setKey(key);
+  }
+
+  /** Delivers frames with {@code topic}. Returns false if it was already subscribed. */
+  public boolean subscribe(byte[] topic) {
+    return topics.subscribe(topic);
+  }
+
+  /** Stops delivering frames with {@code topic}. Returns false if it was not subscribed. */
+  public boolean unsubscribe(byte[] topic) {
+    return topics.unsubscribe(topic);
+  }
+
+  /** Sets the replay buffer limits; zero for either disables replay. */
+  public void setReplayLimits(int maxCount, int maxBytes) {
+    synchronized (replayLock) {
+      drop(replay.configure(maxCount, maxBytes));
+    }
+  }
+
+  /** Discards frames left over from a previous connection. */
+  public void clearReplay() {
+    synchronized (replayLock) {
+      drop(replay.clear());
+    }
+  }
+
+  /** Number of frames waiting in the replay buffer. */
+  public int getReplayDepth() {
+    synchronized (replayLock) {
+      return replay.size();
+    }
+  }
+
+  @Override
+  public void onFrame(byte[] buffer, int offset, int length) {
+    stats.increment(LinkStats.FRAMES_RECEIVED);
+    stats.add(LinkStats.BYTES_RECEIVED, length);
+    if (!topics.accepts(buffer, offset, length)) {
+      // Never reaches Dart, so it must not use up demand either
+      stats.increment(LinkStats.FRAMES_FILTERED);
+      return;
+    }
+    demand.consume(1);
+    boolean bytes = bytesListening;
+    boolean messages = messagesListening;
+    if (!bytes && !messages) {
+      // Recheck under the lock: a stream may be starting to listen right now
+      synchronized (replayLock) {
+        bytes = bytesListening;
+        messages = messagesListening;
+        if (!bytes && !messages) {
+          drop(replay.offer(buffer, offset, length));
+        }
+      }
+    }
+
+    PayloadKey conflation = conflationKey;
+    Object key = conflation != null && (bytes || messages)
+        ? conflation.extract(buffer, offset, length)
+        : null;
+
+    // Raw payloads skip the charset decode entirely
+    if (bytes) {
+      byte[] payload = Arrays.copyOfRange(buffer, offset, offset + length);
+      int dropped = bytesBatcher.offer(payload, length, key);
+      if (!messages) {
+        demand.refund(dropped);
+      }
+    }
+
+    // Only decode to a String when someone listens for text
+    if (messages) {
+      String message = new String(buffer, offset, length, StandardCharsets.UTF_8);
+      demand.refund(messageBatcher.offer(message, length, key));
+    }
+
+    if (AccessoryLog.sampleFrame()) {
+      if (AccessoryLog.logPayloads()) {
+        AccessoryLog.d(TAG,
+            "Received message: " + new String(buffer, offset, length, StandardCharsets.UTF_8));
+      } else {
+        AccessoryLog.d(TAG, "Received " + length + " bytes");
+      }
+    }
+  }
+
+  /** Counts {@code count} replay frames as dropped and returns their demand. */
+  private void drop(int count) {
+    stats.add(LinkStats.FRAMES_DROPPED, count);
+    demand.refund(count);
+  }
+
+  @Override
+  public void onInvalidLength(int length) {
+    stats.increment(LinkStats.INVALID_LENGTH);
+    stats.increment(LinkStats.RESYNCS);
+    int skipped = AccessoryLog.sampleDecodeError();
+    if (skipped >= 0) {
+      AccessoryLog.w(TAG, "Invalid message length: " + length + skippedSuffix(skipped));
+    }
+  }
+
+  @Override
+  public void onInvalidEot(byte b) {
+    stats.increment(LinkStats.INVALID_EOT);
+    stats.increment(LinkStats.RESYNCS);
+    int skipped = AccessoryLog.sampleDecodeError();
+    if (skipped >= 0) {
+      AccessoryLog.w(TAG, "Invalid EOT byte: " + b + skippedSuffix(skipped));
+    }
+  }
+
+  private static String skippedSuffix(int skipped) {
+    return skipped > 0 ? " (" + skipped + " more decode errors since the last warning)" : "";
+  }
+
+  @Override
+  public void onBytesSkipped(int count) {
+    stats.add(LinkStats.BYTES_SKIPPED, count);
+  }
+}
@@ -0,0 +1,46 @@
+/**
+ * @file: IoEngine.java
+ * @package: accessory_kit
+ * @created Date: Mon Dec 2025
+ * @author: Nicholas J. Caruso
+ *
+ * @last Modified: Mon Dec 29 2025
+ * @modified By: Nicholas J. Caruso
+ *
+ * @version: 1.1.31
+ *
+ */
+
+
+
+
+
+package com.stiffsockets.accessory_kit;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+
+/**
+ * IoEngine
+ *
+ * Moves bytes between the accessory file descriptor and ByteBuffers. The stream engine wraps
+ * FileInputStream/FileOutputStream and works on heap buffers; the channel engine uses
+ * FileChannel with direct buffers so reads and writes skip the extra heap copy.
+ *
+ * Callers allocate their buffers through {@link #allocate} so each engine gets the buffer
+ * type it can use without copying.
+ */
+public interface IoEngine {
+  /**
+   * Reads into {@code dst} from its position, advancing it.
+   * Returns the number of bytes read, or -1 at end of stream.
+   */
+  int read(ByteBuffer dst) throws IOException;
+
+  /** Writes all remaining bytes of {@code src}, advancing its position. */
+  void write(ByteBuffer src) throws IOException;
+
+  /** Allocates a buffer of the type this engine reads and writes without copying. */
+  ByteBuffer allocate(int capacity);
+}
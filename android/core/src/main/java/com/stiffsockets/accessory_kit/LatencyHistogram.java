@@ -0,0 +1,134 @@
+/**
+ * @file: LatencyHistogram.java
+ * @package: accessory_kit
+ * @created Date: Mon Dec 2025
+ * @author: Nicholas J. Caruso
+ *
+ * @last Modified: Mon Dec 29 2025
+ * @modified By: Nicholas J. Caruso
+ *
+ * @version: 1.1.31
+ *
+ */
+
+
+
+
+
+package com.stiffsockets.accessory_kit;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+
+/**
+ * LatencyHistogram
+ *
+ * Fixed-size, allocation-free histogram of nanosecond latencies. Buckets are log-linear:
+ * values below 16 ns are exact, and every power of two above that is split into 16
+ * sub-buckets, so a reported percentile is within about 6% of the true value. The top bucket
+ * covers everything from roughly 18 minutes up.
+ *
+ * record() is one atomic increment and may be called from any thread; percentiles are read
+ * from a racy but monotonic view of the counts.
+ */
+public final class LatencyHistogram {
+  private static final int SUB_BITS = 4;
+  private static final int SUB_COUNT = 1 << SUB_BITS;
+  private static final int MAX_EXPONENT = 40;
+  private static final int BUCKET_COUNT = (MAX_EXPONENT - SUB_BITS + 2) * SUB_COUNT;
+
+  private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+  private final AtomicLongArray totals = new AtomicLongArray(2);  // count, sum
+
+  public void record(long nanos) {
+    if (nanos < 0) {
+      nanos = 0;
+    }
+    counts.getAndIncrement(bucketOf(nanos));
+    totals.getAndIncrement(0);
+    totals.getAndAdd(1, nanos);
+  }
+
+  public long getCount() {
+    return totals.get(0);
+  }
+
+  /** Upper bound, in nanoseconds, of the bucket holding the given percentile (0..100). */
+  public long getPercentile(double percentile) {
+    return percentileOf(copyCounts(), percentile);
+  }
+
+  public void reset() {
+    for (int i = 0; i < BUCKET_COUNT; i++) {
+      counts.set(i, 0);
+    }
+    totals.set(0, 0);
+    totals.set(1, 0);
+  }
+
+  /** Count, mean and percentiles in microseconds, for the platform channel. */
+  public Map<String, Object> snapshot() {
+    Map<String, Object> map = new LinkedHashMap<>();
+    long count = getCount();
+    map.put("count", count);
+    map.put("meanUs", count == 0 ? 0.0 : totals.get(1) / (double) count / 1000.0);
+    long[] snapshot = copyCounts();
+    map.put("p50Us", percentileOf(snapshot, 50) / 1000.0);
+    map.put("p90Us", percentileOf(snapshot, 90) / 1000.0);
+    map.put("p99Us", percentileOf(snapshot, 99) / 1000.0);
+    map.put("p999Us", percentileOf(snapshot, 99.9) / 1000.0);
+    map.put("maxUs", percentileOf(snapshot, 100) / 1000.0);
+    return map;
+  }
+
+  private long[] copyCounts() {
+    long[] snapshot = new long[BUCKET_COUNT];
+    for (int i = 0; i < BUCKET_COUNT; i++) {
+      snapshot[i] = counts.get(i);
+    }
+    return snapshot;
+  }
+
+  private static long percentileOf(long[] snapshot, double percentile) {
+    long count = 0;
+    for (long c : snapshot) {
+      count += c;
+    }
+    if (count == 0) {
+      return 0;
+    }
+    long rank = (long) Math.ceil(count * Math.min(100.0, Math.max(0.0, percentile)) / 100.0);
+    rank = Math.max(1, rank);
+    long seen = 0;
+    for (int i = 0; i < BUCKET_COUNT; i++) {
+      seen += snapshot[i];
+      if (seen >= rank) {
+        return upperBoundOf(i);
+      }
+    }
+    return upperBoundOf(BUCKET_COUNT - 1);
+  }
+
+  static int bucketOf(long value) {
+    if (value < SUB_COUNT) {
+      return (int) value;
+    }
+    int exponent = 63 - Long.numberOfLeadingZeros(value);
+    if (exponent > MAX_EXPONENT) {
+      return BUCKET_COUNT - 1;
+    }
+    int mantissa = (int) (value >>> (exponent - SUB_BITS));
+    return (exponent - SUB_BITS + 1) * SUB_COUNT + (mantissa - SUB_COUNT);
+  }
+
+  static long upperBoundOf(int bucket) {
+    if (bucket < SUB_COUNT) {
+      return bucket;
+    }
+    int exponent = bucket / SUB_COUNT + SUB_BITS - 1;
+    long mantissa = bucket % SUB_COUNT + SUB_COUNT;
+    return ((mantissa + 1) << (exponent - SUB_BITS)) - 1;
+  }
+}
@@ -0,0 +1,147 @@
+/**
+ * @file: LinkStats.java
+ * @package: accessory_kit
+ * @created Date: Mon Dec 2025
+ * @author: Nicholas J. Caruso
+ *
+ * @last Modified: Mon Dec 29 2025
+ * @modified By: Nicholas J. Caruso
+ *
+ * @version: 1.1.31
+ *
+ */
+
+
+
+
+
+package com.stiffsockets.accessory_kit;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+
+/**
+ * LinkStats
+ *
+ * Cumulative link counters, cheap enough to leave on in production: an update is one
+ * uncontended atomic add. Each counter sits on its own cache line so the reader, writer and
+ * platform threads do not invalidate each other's lines.
+ *
+ * Also holds one {@link LatencyHistogram} per pipeline stage. Inbound: read (time in read()
+ * for reads that returned data), decode (per chunk), deliveryQueue (first message of a batch
+ * until the batch is handed to the main thread) and mainThreadHop (hand-off until the sink
+ * runs). Outbound: sendQueue (enqueue until the writer picks the request up) and write.
+ */
+public final class LinkStats {
+  // Inbound
+  public static final int READ_CALLS = 0;
+  public static final int WIRE_BYTES_READ = 1;
+  public static final int FRAMES_RECEIVED = 2;
+  public static final int BYTES_RECEIVED = 3;
+  public static final int INVALID_LENGTH = 4;
+  public static final int INVALID_EOT = 5;
+  public static final int RESYNCS = 6;
+  public static final int FRAMES_DROPPED = 7;
+  public static final int BYTES_SKIPPED = 8;
+  public static final int FRAMES_REPLAYED = 9;
+  public static final int DELIVERY_DROPPED = 10;
+  public static final int READER_BLOCKED = 11;
+  public static final int DEMAND_WAITS = 12;
+  public static final int FRAMES_CONFLATED = 13;
+  public static final int FRAMES_FILTERED = 14;
+
+  // Outbound
+  public static final int FRAMES_SENT = 15;
+  public static final int BYTES_SENT = 16;
+  public static final int SEND_FAILURES = 17;
+  public static final int SEND_QUEUE_FULL = 18;
+
+  private static final String[] NAMES = {
+      "readCalls",
+      "wireBytesRead",
+      "framesReceived",
+      "bytesReceived",
+      "invalidLength",
+      "invalidEot",
+      "resyncs",
+      "framesDropped",
+      "bytesSkipped",
+      "framesReplayed",
+      "deliveryDropped",
+      "readerBlocked",
+      "demandWaits",
+      "framesConflated",
+      "framesFiltered",
+      "framesSent",
+      "bytesSent",
+      "sendFailures",
+      "sendQueueFull",
+  };
+
+  private static final int COUNT = NAMES.length;
+  private static final int PAD = 8;  // 8 longs = one 64-byte cache line
+
+  private final AtomicLongArray counters = new AtomicLongArray(COUNT * PAD);
+
+  // Per-stage latency. readWait is not processing cost: in blocking mode a read parks until
+  // the host sends, so it mostly measures gaps between transfers.
+  public final LatencyHistogram readWaitLatency = new LatencyHistogram();
+  public final LatencyHistogram decodeLatency = new LatencyHistogram();
+  public final LatencyHistogram deliveryQueueLatency = new LatencyHistogram();
+  public final LatencyHistogram mainThreadHopLatency = new LatencyHistogram();
+  public final LatencyHistogram sendQueueLatency = new LatencyHistogram();
+  public final LatencyHistogram writeLatency = new LatencyHistogram();
+
+  public void increment(int counter) {
+    counters.getAndIncrement(counter * PAD);
+  }
+
+  public void add(int counter, long delta) {
+    counters.getAndAdd(counter * PAD, delta);
+  }
+
+  public long get(int counter) {
+    return counters.get(counter * PAD);
+  }
+
+  /** Sum of all decode errors. */
+  public long decodeErrors() {
+    return get(INVALID_LENGTH) + get(INVALID_EOT);
+  }
+
+  public void reset() {
+    for (int i = 0; i < COUNT; i++) {
+      counters.set(i * PAD, 0);
+    }
+    readWaitLatency.reset();
+    decodeLatency.reset();
+    deliveryQueueLatency.reset();
+    mainThreadHopLatency.reset();
+    sendQueueLatency.reset();
+    writeLatency.reset();
+  }
+
+  /** Counter values by name, for the platform channel. */
+  public Map<String, Object> snapshot() {
+    Map<String, Object> map = new LinkedHashMap<>();
+    for (int i = 0; i < COUNT; i++) {
+      map.put(NAMES[i], get(i));
+    }
+    map.put("decodeErrors", decodeErrors());
+    return map;
+  }
+
+  /** Latency percentiles by stage, for the platform channel. */
+  public Map<String, Object> latencySnapshot() {
+    Map<String, Object> map = new LinkedHashMap<>();
+    map.put("decode", decodeLatency.snapshot());
+    map.put("deliveryQueue", deliveryQueueLatency.snapshot());
+    map.put("mainThreadHop", mainThreadHopLatency.snapshot());
+    map.put("sendQueue", sendQueueLatency.snapshot());
+    map.put("write", writeLatency.snapshot());
+    map.put("readWait", readWaitLatency.snapshot());
+    return map;
+  }
+}
@@ -0,0 +1,157 @@
+/**
+ * @file: LoopbackTransport.java
+ * @package: accessory_kit
+ * @created Date: Mon Dec 2025
+ * @author: Nicholas J. Caruso
+ *
+ * @last Modified: Mon Dec 29 2025
+ * @modified By: Nicholas J. Caruso
+ *
+ * @version: 1.1.31
+ *
+ */
+
+
+
+
+
+package com.stiffsockets.accessory_kit;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+
+/**
+ * LoopbackTransport
+ *
+ * In-memory {@link Transport}. Endpoints come in connected pairs: bytes written to one are read
+ * from its {@link #peer()}. Each direction is a bounded ring buffer, so a writer blocks when the
+ * reader falls behind, the way a USB host's bulk writes stall when the device stops reading.
+ *
+ * Reads return whatever is buffered, up to the destination's remaining space, and block only
+ * while the ring is empty. Closing an endpoint lets its peer drain what was already written and
+ * then read -1.
+ */
+public final class LoopbackTransport implements Transport {
+  public static final int DEFAULT_CAPACITY = 65536;
+
+  private final Pipe in;
+  private final Pipe out;
+  private LoopbackTransport peer;
+
+  private LoopbackTransport(Pipe in, Pipe out) {
+    this.in = in;
+    this.out = out;
+  }
+
+  /** Creates a connected pair with {@code capacity} bytes of buffering in each direction. */
+  public static LoopbackTransport create(int capacity) {
+    Pipe a = new Pipe(capacity);
+    Pipe b = new Pipe(capacity);
+    LoopbackTransport device = new LoopbackTransport(a, b);
+    LoopbackTransport host = new LoopbackTransport(b, a);
+    device.peer = host;
+    host.peer = device;
+    return device;
+  }
+
+  public static LoopbackTransport create() {
+    return create(DEFAULT_CAPACITY);
+  }
+
+  /** The other end of this link. */
+  public LoopbackTransport peer() {
+    return peer;
+  }
+
+  @Override
+  public int read(ByteBuffer dst) throws IOException {
+    return in.read(dst);
+  }
+
+  @Override
+  public void write(ByteBuffer src) throws IOException {
+    out.write(src);
+  }
+
+  @Override
+  public ByteBuffer allocate(int capacity) {
+    return ByteBuffer.allocate(capacity);
+  }
+
+  @Override
+  public void close() {
+    out.close();
+    in.close();
+  }
+
+  /** One direction of the link: a bounded byte ring guarded by its own monitor. */
+  private static final class Pipe {
+    private final byte[] ring;
+    private int head = 0;
+    private int count = 0;
+    private boolean closed = false;
+
+    Pipe(int capacity) {
+      if (capacity <= 0) {
+        throw new IllegalArgumentException("capacity must be positive: " + capacity);
+      }
+      ring = new byte[capacity];
+    }
+
+    synchronized int read(ByteBuffer dst) throws IOException {
+      if (!dst.hasRemaining()) {
+        return 0;
+      }
+      while (count == 0 && !closed) {
+        try {
+          wait();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          throw new IOException("Interrupted while reading", e);
+        }
+      }
+      if (count == 0) {
+        return -1;
+      }
+
+      int n = Math.min(count, dst.remaining());
+      int first = Math.min(n, ring.length - head);
+      dst.put(ring, head, first);
+      dst.put(ring, 0, n - first);
+      head = (head + n) % ring.length;
+      count -= n;
+      notifyAll();
+      return n;
+    }
+
+    synchronized void write(ByteBuffer src) throws IOException {
+      while (src.hasRemaining()) {
+        while (count == ring.length && !closed) {
+          try {
+            wait();
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while writing", e);
+          }
+        }
+        if (closed) {
+          throw new IOException("Loopback transport closed");
+        }
+
+        int n = Math.min(ring.length - count, src.remaining());
+        int tail = (head + count) % ring.length;
+        int first = Math.min(n, ring.length - tail);
+        src.get(ring, tail, first);
+        src.get(ring, 0, n - first);
+        count += n;
+        notifyAll();
+      }
+    }
+
+    synchronized void close() {
+      closed = true;
+      notifyAll();
+    }
+  }
+}
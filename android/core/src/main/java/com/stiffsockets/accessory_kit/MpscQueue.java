@@ -0,0 +1,90 @@
+/**
+ * @file: MpscQueue.java
+ * @package: accessory_kit
+ * @created Date: Mon Dec 2025
+ * @author: Nicholas J. Caruso
+ *
+ * @last Modified: Mon Dec 29 2025
+ * @modified By: Nicholas J. Caruso
+ *
+ * @version: 1.1.31
+ *
+ */
+
+
+
+
+
+package com.stiffsockets.accessory_kit;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+
+/**
+ * MpscQueue
+ *
+ * Bounded lock-free queue for many producers and a single consumer. Producers claim a slot
+ * with a CAS on the tail and publish into it; the consumer reads slots in claim order, so
+ * the queue is FIFO across all producers. offer() never blocks and fails when the queue is full.
+ *
+ * poll() may briefly return null while {@link #size} is non-zero: a producer has claimed the
+ * next slot but not yet published into it.
+ */
+public final class MpscQueue<E> {
+  private final AtomicReferenceArray<E> buffer;
+  private final int mask;
+  private final int capacity;
+  private final AtomicLong tail = new AtomicLong();
+  private volatile long head = 0;
+
+  /** Creates a queue holding at least {@code capacity} elements, rounded up to a power of two. */
+  public MpscQueue(int capacity) {
+    if (capacity <= 0 || capacity > 1 << 30) {
+      throw new IllegalArgumentException("Invalid capacity: " + capacity);
+    }
+    int size = capacity == 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+    this.buffer = new AtomicReferenceArray<>(size);
+    this.mask = size - 1;
+    this.capacity = size;
+  }
+
+  /** Adds {@code e} at the tail. Returns false if the queue is full. Safe from any thread. */
+  public boolean offer(E e) {
+    if (e == null) {
+      throw new NullPointerException();
+    }
+    while (true) {
+      long t = tail.get();
+      if (t - head >= capacity) {
+        return false;
+      }
+      if (tail.compareAndSet(t, t + 1)) {
+        buffer.lazySet((int) t & mask, e);
+        return true;
+      }
+    }
+  }
+
+  /** Removes the head element, or returns null if none is published yet. Consumer thread only. */
+  public E poll() {
+    long h = head;
+    int index = (int) h & mask;
+    E e = buffer.get(index);
+    if (e == null) {
+      return null;
+    }
+    buffer.lazySet(index, null);
+    head = h + 1;
+    return e;
+  }
+
+  /** Number of claimed slots not yet consumed. */
+  public int size() {
+    return (int) Math.max(0, tail.get() - head);
+  }
+
+  public int capacity() {
+    return capacity;
+  }
+}
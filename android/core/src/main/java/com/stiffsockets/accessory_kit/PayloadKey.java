@@ -0,0 +1,103 @@
+/**
+ * @file: PayloadKey.java
+ * @package: accessory_kit
+ * @created Date: Mon Dec 2025
+ * @author: Nicholas J. Caruso
+ *
+ * @last Modified: Mon Dec 29 2025
+ * @modified By: Nicholas J. Caruso
+ *
+ * @version: 1.1.31
+ *
+ */
+
+
+
+
+
+package com.stiffsockets.accessory_kit;
+
+import java.nio.charset.StandardCharsets;
+
+
+/**
+ * PayloadKey
+ *
+ * Locates a key inside a payload, straight from the frame bytes so no charset decode is
+ * needed: either a fixed byte range, for binary telemetry with a sensor id or topic byte at a
+ * known offset, or everything before a delimiter byte, for text such as "temp:21.5". Used as
+ * the conflation key and as the topic that subscriptions filter on. Payloads the key does
+ * not match have no key.
+ *
+ * Extracted keys are ISO-8859-1 Strings, which map bytes one to one and come with a cached
+ * hash code. {@link #matches} compares in place without allocating.
+ */
+public final class PayloadKey {
+  private final int offset;
+  private final int length;
+  private final int delimiter;
+
+  private PayloadKey(int offset, int length, int delimiter) {
+    this.offset = offset;
+    this.length = length;
+    this.delimiter = delimiter;
+  }
+
+  /** Keys payloads by their {@code length} bytes at {@code offset}. */
+  public static PayloadKey byteRange(int offset, int length) {
+    if (offset < 0 || length <= 0) {
+      throw new IllegalArgumentException("Invalid key range: " + offset + "+" + length);
+    }
+    return new PayloadKey(offset, length, -1);
+  }
+
+  /** Keys payloads by the bytes before the first {@code delimiter}, up to {@code maxLength}. */
+  public static PayloadKey prefix(byte delimiter, int maxLength) {
+    if (maxLength <= 0) {
+      throw new IllegalArgumentException("Invalid key length: " + maxLength);
+    }
+    return new PayloadKey(0, maxLength, delimiter & 0xFF);
+  }
+
+  /** Returns the key of the payload {@code buffer[offset, offset + size)}, or null. */
+  public Object extract(byte[] buffer, int offset, int size) {
+    int keyLength = keyLength(buffer, offset, size);
+    if (keyLength < 0) {
+      return null;
+    }
+    return new String(buffer, offset + this.offset, keyLength, StandardCharsets.ISO_8859_1);
+  }
+
+  /** Whether the payload {@code buffer[offset, offset + size)} has exactly {@code key}. */
+  public boolean matches(byte[] buffer, int offset, int size, byte[] key) {
+    if (keyLength(buffer, offset, size) != key.length) {
+      return false;
+    }
+    int start = offset + this.offset;
+    for (int i = 0; i < key.length; i++) {
+      if (buffer[start + i] != key[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /** Whether the payload {@code buffer[offset, offset + size)} has a key at all. */
+  public boolean hasKey(byte[] buffer, int offset, int size) {
+    return keyLength(buffer, offset, size) >= 0;
+  }
+
+  /** Length of the payload's key, which starts {@code this.offset} bytes in, or -1 if none. */
+  private int keyLength(byte[] buffer, int offset, int size) {
+    if (delimiter < 0) {
+      return size >= this.offset + length ? length : -1;
+    }
+    int end = offset + Math.min(size, length + 1);
+    for (int i = offset; i < end; i++) {
+      if ((buffer[i] & 0xFF) == delimiter) {
+        return i - offset;
+      }
+    }
+    return -1;
+  }
+}
@@ -0,0 +1,90 @@
+/**
+ * @file: PayloadPool.java
+ * @package: accessory_kit
+ * @created Date: Mon Dec 2025
+ * @author: Nicholas J. Caruso
+ *
+ * @last Modified: Mon Dec 29 2025
+ * @modified By: Nicholas J. Caruso
+ *
+ * @version: 1.1.31
+ *
+ */
+
+
+
+
+
+package com.stiffsockets.accessory_kit;
+
+
+/**
+ * PayloadPool
+ *
+ * Size-classed pool of byte arrays. Classes are powers of two from 64 bytes up to 128 KB,
+ * so any legal frame length (1..65535) maps to a class and a buffer never holds more than twice
+ * what it needs; the top class fits a decoder window holding a whole maximum-length frame
+ * with room to compact. Each class keeps a small free list; once warm, decoding does not
+ * allocate, and an array released to a full class is simply left to the GC.
+ *
+ * Thread-safe: arrays may be acquired on one thread and released on another.
+ */
+public final class PayloadPool {
+  private static final int MIN_SHIFT = 6;   // 64 bytes
+  private static final int MAX_SHIFT = 17;  // 128 KB
+  private static final int CLASS_COUNT = MAX_SHIFT - MIN_SHIFT + 1;
+
+  public static final int DEFAULT_BUFFERS_PER_CLASS = 8;
+  public static final int MAX_SIZE = 1 << MAX_SHIFT;
+
+  private final byte[][][] free = new byte[CLASS_COUNT][][];
+  private final int[] freeCount = new int[CLASS_COUNT];
+
+  public PayloadPool() {
+    this(DEFAULT_BUFFERS_PER_CLASS);
+  }
+
+  public PayloadPool(int buffersPerClass) {
+    for (int i = 0; i < CLASS_COUNT; i++) {
+      free[i] = new byte[buffersPerClass][];
+    }
+  }
+
+  /** Returns an array of at least {@code length} bytes, 1 <= length <= MAX_SIZE. */
+  public byte[] acquire(int length) {
+    int cls = classOf(length);
+    synchronized (free[cls]) {
+      int n = freeCount[cls];
+      if (n > 0) {
+        byte[] buffer = free[cls][--n];
+        free[cls][n] = null;
+        freeCount[cls] = n;
+        return buffer;
+      }
+    }
+    return new byte[1 << (cls + MIN_SHIFT)];
+  }
+
+  /** Returns an array obtained from {@link #acquire} to the pool. */
+  public void release(byte[] buffer) {
+    int cls = classOf(buffer.length);
+    if (buffer.length != 1 << (cls + MIN_SHIFT)) {
+      return;  // Not one of ours
+    }
+    synchronized (free[cls]) {
+      int n = freeCount[cls];
+      if (n < free[cls].length) {
+        free[cls][n] = buffer;
+        freeCount[cls] = n + 1;
+      }
+    }
+  }
+
+  private static int classOf(int length) {
+    if (length <= 0 || length > 1 << MAX_SHIFT) {
+      throw new IllegalArgumentException("Payload length out of range: " + length);
+    }
+    int shift = 32 - Integer.numberOfLeadingZeros(length - 1);
+    return Math.max(shift, MIN_SHIFT) - MIN_SHIFT;
+  }
+}
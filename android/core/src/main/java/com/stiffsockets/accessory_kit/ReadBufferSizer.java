@@ -0,0 +1,84 @@
+/**
+ * @file: ReadBufferSizer.java
+ * @package: accessory_kit
+ * @created Date: Mon Dec 2025
+ * @author: Nicholas J. Caruso
+ *
+ * @last Modified: Mon Dec 29 2025
+ * @modified By: Nicholas J. Caruso
+ *
+ * @version: 1.1.31
+ *
+ */
+
+
+
+
+
+package com.stiffsockets.accessory_kit;
+
+
+/**
+ * ReadBufferSizer
+ *
+ * Picks the read size for the reader loop from observed throughput. The size doubles after a
+ * run of reads that fill the whole buffer (the host has more queued than we ask for) and halves
+ * after a long run of reads that use less than a quarter of it. Sizes stay within [min, max].
+ *
+ * The default starts at 16 KB, the bulk transfer size most AOA hosts use. Android drops the rest
+ * of a bulk transfer that does not fit the read buffer, so min should not go below the host's
+ * transfer size.
+ */
+public final class ReadBufferSizer {
+  public static final int DEFAULT_SIZE = 16384;
+  public static final int DEFAULT_MAX_SIZE = 262144;
+
+  // Hysteresis: grow quickly on bursts, shrink slowly when idle
+  private static final int GROW_AFTER_FULL_READS = 4;
+  private static final int SHRINK_AFTER_SMALL_READS = 64;
+
+  private final int minSize;
+  private final int maxSize;
+  private int size;
+  private int fullReads = 0;
+  private int smallReads = 0;
+
+  public ReadBufferSizer(int initialSize, int minSize, int maxSize) {
+    if (minSize <= 0 || maxSize < minSize) {
+      throw new IllegalArgumentException("Invalid read buffer bounds: " + minSize + ".." + maxSize);
+    }
+    this.minSize = minSize;
+    this.maxSize = maxSize;
+    this.size = Math.max(minSize, Math.min(maxSize, initialSize));
+  }
+
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Records a read of {@code bytesRead} bytes into a buffer of the current size.
+   * Returns true if the size changed and the caller should reallocate its buffer.
+   */
+  public boolean onRead(int bytesRead) {
+    if (bytesRead >= size) {
+      smallReads = 0;
+      if (++fullReads >= GROW_AFTER_FULL_READS && size < maxSize) {
+        size = (int) Math.min((long) size * 2, maxSize);
+        fullReads = 0;
+        return true;
+      }
+    } else if (bytesRead < size / 4) {
+      fullReads = 0;
+      if (++smallReads >= SHRINK_AFTER_SMALL_READS && size > minSize) {
+        size = Math.max(size / 2, minSize);
+        smallReads = 0;
+        return true;
+      }
+    } else {
+      fullReads = 0;
+      smallReads = 0;
+    }
+    return false;
+  }
+}
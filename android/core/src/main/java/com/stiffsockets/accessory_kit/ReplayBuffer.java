@@ -0,0 +1,96 @@
+/**
+ * @file: ReplayBuffer.java
+ * @package: accessory_kit
+ * @created Date: Mon Dec 2025
+ * @author: Nicholas J. Caruso
+ *
+ * @last Modified: Mon Dec 29 2025
+ * @modified By: Nicholas J. Caruso
+ *
+ * @version: 1.1.31
+ *
+ */
+
+
+
+
+
+package com.stiffsockets.accessory_kit;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+
+/**
+ * ReplayBuffer
+ *
+ * Holds frames that arrive while no Dart stream is listening, such as the burst a host sends
+ * right after the accessory opens, before the app has subscribed or during a hot restart.
+ * Bounded by frame count and payload bytes; when either limit is hit the oldest frames are
+ * evicted first. A limit of zero disables buffering.
+ *
+ * Not thread-safe; {@link InboundPipeline} guards it.
+ */
+public final class ReplayBuffer {
+  public static final int DEFAULT_MAX_COUNT = 256;
+  public static final int DEFAULT_MAX_BYTES = 262144;
+
+  private final ArrayDeque<byte[]> frames = new ArrayDeque<>();
+  private int maxCount = DEFAULT_MAX_COUNT;
+  private int maxBytes = DEFAULT_MAX_BYTES;
+  private int bytes = 0;
+
+  /** Updates the limits and returns the number of frames evicted to meet them. */
+  public int configure(int maxCount, int maxBytes) {
+    this.maxCount = Math.max(0, maxCount);
+    this.maxBytes = Math.max(0, maxBytes);
+    return trim(0, 0);
+  }
+
+  /**
+   * Buffers a copy of {@code length} bytes of {@code buffer} starting at {@code offset}.
+   * Returns the number of frames discarded to stay within the limits, counting this one if it
+   * can never fit; a frame that is discarded outright is not copied.
+   */
+  public int offer(byte[] buffer, int offset, int length) {
+    if (length > maxBytes || maxCount == 0) {
+      return 1;
+    }
+    int evicted = trim(1, length);
+    frames.add(Arrays.copyOfRange(buffer, offset, offset + length));
+    bytes += length;
+    return evicted;
+  }
+
+  /** Removes and returns all buffered frames, oldest first. */
+  public List<byte[]> drain() {
+    List<byte[]> drained = new ArrayList<>(frames);
+    frames.clear();
+    bytes = 0;
+    return drained;
+  }
+
+  /** Discards all buffered frames and returns how many there were. */
+  public int clear() {
+    int count = frames.size();
+    frames.clear();
+    bytes = 0;
+    return count;
+  }
+
+  public int size() {
+    return frames.size();
+  }
+
+  /** Evicts the oldest frames until {@code count} more frames of {@code size} bytes fit. */
+  private int trim(int count, int size) {
+    int evicted = 0;
+    while (!frames.isEmpty() && (frames.size() + count > maxCount || bytes + size > maxBytes)) {
+      bytes -= frames.poll().length;
+      evicted++;
+    }
+    return evicted;
+  }
+}
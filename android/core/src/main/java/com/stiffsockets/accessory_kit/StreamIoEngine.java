@@ -0,0 +1,60 @@
+/**
+ * @file: StreamIoEngine.java
+ * @package: accessory_kit
+ * @created Date: Mon Dec 2025
+ * @author: Nicholas J. Caruso
+ *
+ * @last Modified: Mon Dec 29 2025
+ * @modified By: Nicholas J. Caruso
+ *
+ * @version: 1.1.31
+ *
+ */
+
+
+
+
+
+package com.stiffsockets.accessory_kit;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+
+
+/**
+ * StreamIoEngine
+ *
+ * {@link IoEngine} over an InputStream/OutputStream pair using heap buffers.
+ */
+public final class StreamIoEngine implements IoEngine {
+  private final InputStream inputStream;
+  private final OutputStream outputStream;
+
+  public StreamIoEngine(InputStream inputStream, OutputStream outputStream) {
+    this.inputStream = inputStream;
+    this.outputStream = outputStream;
+  }
+
+  @Override
+  public int read(ByteBuffer dst) throws IOException {
+    int n = inputStream.read(dst.array(), dst.arrayOffset() + dst.position(), dst.remaining());
+    if (n > 0) {
+      dst.position(dst.position() + n);
+    }
+    return n;
+  }
+
+  @Override
+  public void write(ByteBuffer src) throws IOException {
+    outputStream.write(src.array(), src.arrayOffset() + src.position(), src.remaining());
+    outputStream.flush();
+    src.position(src.limit());
+  }
+
+  @Override
+  public ByteBuffer allocate(int capacity) {
+    return ByteBuffer.allocate(capacity);
+  }
+}
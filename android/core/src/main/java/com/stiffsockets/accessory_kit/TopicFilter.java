@@ -0,0 +1,94 @@
+/**
+ * @file: TopicFilter.java
+ * @package: accessory_kit
+ * @created Date: Mon Dec 2025
+ * @author: Nicholas J. Caruso
+ *
+ * @last Modified: Mon Dec 29 2025
+ * @modified By: Nicholas J. Caruso
+ *
+ * @version: 1.1.31
+ *
+ */
+
+
+
+
+
+package com.stiffsockets.accessory_kit;
+
+import java.util.Arrays;
+
+
+/**
+ * TopicFilter
+ *
+ * Native topic subscriptions. A {@link PayloadKey} locates each payload's topic, and only
+ * payloads whose topic is subscribed are delivered; payloads without a topic always are. The
+ * check runs on the raw bytes before any copy, String decode or main-thread post, so frames
+ * nobody subscribed to cost a few byte compares.
+ *
+ * Subscriptions are held copy-on-write: the reader thread reads a snapshot without locking,
+ * and (un)subscribing from the main thread replaces it. Filtering is off while no key is set.
+ */
+public final class TopicFilter {
+  private final Object lock = new Object();
+  private volatile PayloadKey key = null;
+  private volatile byte[][] topics = new byte[0][];
+
+  /** Sets where the topic sits in a payload; null turns filtering off. */
+  public void setKey(PayloadKey key) {
+    this.key = key;
+  }
+
+  /** Adds {@code topic}. Returns false if it was already subscribed. */
+  public boolean subscribe(byte[] topic) {
+    synchronized (lock) {
+      if (indexOf(topic) >= 0) {
+        return false;
+      }
+      byte[][] grown = Arrays.copyOf(topics, topics.length + 1);
+      grown[topics.length] = topic.clone();
+      topics = grown;
+      return true;
+    }
+  }
+
+  /** Removes {@code topic}. Returns false if it was not subscribed. */
+  public boolean unsubscribe(byte[] topic) {
+    synchronized (lock) {
+      int index = indexOf(topic);
+      if (index < 0) {
+        return false;
+      }
+      byte[][] shrunk = new byte[topics.length - 1][];
+      System.arraycopy(topics, 0, shrunk, 0, index);
+      System.arraycopy(topics, index + 1, shrunk, index, shrunk.length - index);
+      topics = shrunk;
+      return true;
+    }
+  }
+
+  /** Whether the payload {@code buffer[offset, offset + size)} should be delivered. */
+  public boolean accepts(byte[] buffer, int offset, int size) {
+    PayloadKey key = this.key;
+    if (key == null) {
+      return true;
+    }
+    for (byte[] topic : topics) {
+      if (key.matches(buffer, offset, size, topic)) {
+        return true;
+      }
+    }
+    return !key.hasKey(buffer, offset, size);
+  }
+
+  private int indexOf(byte[] topic) {
+    for (int i = 0; i < topics.length; i++) {
+      if (Arrays.equals(topics[i], topic)) {
+        return i;
+      }
+    }
+    return -1;
+  }
+}
@@ -0,0 +1,41 @@
+/**
+ * @file: Transport.java
+ * @package: accessory_kit
+ * @created Date: Mon Dec 2025
+ * @author: Nicholas J. Caruso
+ *
+ * @last Modified: Mon Dec 29 2025
+ * @modified By: Nicholas J. Caruso
+ *
+ * @version: 1.1.31
+ *
+ */
+
+
+
+
+
+package com.stiffsockets.accessory_kit;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+
+/**
+ * Transport
+ *
+ * A full-duplex byte link the reader and writer run on. The AOA file descriptor is one
+ * implementation ({@link AccessoryTransport}); {@link LoopbackTransport} connects two
+ * endpoints in memory so the framing, threading and delivery stages can run without a device.
+ *
+ * Reads and writes follow {@link IoEngine}: a read may block until data arrives and returns -1
+ * once the peer has closed and everything it sent has been read.
+ */
+public interface Transport extends IoEngine, Closeable {
+  /**
+   * Closes both directions. A read blocked on this transport returns -1 or throws, and
+   * later writes fail with an IOException.
+   */
+  @Override
+  void close() throws IOException;
+}
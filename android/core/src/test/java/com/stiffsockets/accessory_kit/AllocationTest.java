@@ -0,0 +1,197 @@
+package com.stiffsockets.accessory_kit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Steady-state allocation budgets for the receive and send paths, measured per frame with
+ * com.sun.management.ThreadMXBean after a warm-up. Budgets leave room for the batch lists the
+ * delivery stage hands to Dart (a few hundred frames each) but not for any per-frame object
+ * the path does not need; if one of these fails, something on the hot path started allocating.
+ */
+public class AllocationTest {
+  private static final int PAYLOAD_SIZE = 64;
+  private static final int WARMUP_FRAMES = 20000;
+  private static final int MEASURED_FRAMES = 20000;
+
+  // Bytes per frame
+  private static final double BATCH_OVERHEAD = 16;
+  private static final double DROP_BUDGET = 1;
+  private static final double BYTES_BUDGET = PAYLOAD_SIZE + 16 + BATCH_OVERHEAD;  // one byte[] copy
+  private static final double MESSAGE_BUDGET = PAYLOAD_SIZE + 16 + 24 + BATCH_OVERHEAD;  // one String
+  private static final double SEND_BUDGET = 1;
+
+  private com.sun.management.ThreadMXBean threads;
+
+  private final List<Runnable> posted = new ArrayList<>();
+  private final DeliveryBatcher.Scheduler scheduler = new DeliveryBatcher.Scheduler() {
+    @Override
+    public void post(Runnable task) {
+      posted.add(task);
+    }
+
+    @Override
+    public void postDelayed(Runnable task, long delayMs) {
+      posted.add(task);
+    }
+  };
+  private final AtomicLong delivered = new AtomicLong();
+  private final LinkStats stats = new LinkStats();
+  private final InboundPipeline inbound = new InboundPipeline(stats,
+      new DeliveryBatcher(scheduler, stats, batch -> delivered.addAndGet(batch.size())),
+      new DeliveryBatcher(scheduler, stats, batch -> delivered.addAndGet(batch.size())), new DemandGate());
+  private final FrameDecoder decoder = new FrameDecoder(65535, new PayloadPool(), inbound);
+
+  @Before
+  public void setUp() {
+    assumeTrue(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean);
+    threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    assumeTrue(threads.isThreadAllocatedMemorySupported());
+    threads.setThreadAllocatedMemoryEnabled(true);
+  }
+
+  private static byte[] stream(int frames) {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    for (int i = 0; i < frames; i++) {
+      out.write(FrameDecoder.SOH);
+      out.write(0);
+      out.write(PAYLOAD_SIZE);
+      for (int j = 0; j < PAYLOAD_SIZE; j++) {
+        out.write('a' + (i + j) % 26);
+      }
+      out.write(FrameDecoder.EOT);
+    }
+    return out.toByteArray();
+  }
+
+  private void receive(byte[] input) {
+    // Bulk-transfer sized reads, flushing like the main looper would after each one
+    for (int pos = 0; pos < input.length; pos += 16384) {
+      decoder.decode(input, pos, Math.min(16384, input.length - pos));
+      for (int i = 0; i < posted.size(); i++) {
+        posted.get(i).run();
+      }
+      posted.clear();
+    }
+  }
+
+  private double receiveBytesPerFrame() {
+    byte[] warmup = stream(WARMUP_FRAMES);
+    byte[] measured = stream(MEASURED_FRAMES);
+    receive(warmup);
+
+    long threadId = Thread.currentThread().getId();
+    long before = threads.getThreadAllocatedBytes(threadId);
+    receive(measured);
+    long after = threads.getThreadAllocatedBytes(threadId);
+    return (after - before) / (double) MEASURED_FRAMES;
+  }
+
+  @Test
+  public void receive_unlistenedFrames_doNotAllocate() {
+    // Replay keeps a copy of each unlistened frame; without it they are simply counted
+    inbound.setReplayLimits(0, 0);
+    double perFrame = receiveBytesPerFrame();
+
+    assertEquals(WARMUP_FRAMES + MEASURED_FRAMES, stats.get(LinkStats.FRAMES_DROPPED));
+    assertTrue("Allocated " + perFrame + " B/frame", perFrame <= DROP_BUDGET);
+  }
+
+  @Test
+  public void receive_bytesStream_allocatesOnlyThePayloadCopy() {
+    inbound.setBytesListening(true);
+
+    double perFrame = receiveBytesPerFrame();
+
+    assertEquals(WARMUP_FRAMES + MEASURED_FRAMES, delivered.get());
+    assertTrue("Allocated " + perFrame + " B/frame", perFrame <= BYTES_BUDGET);
+  }
+
+  @Test
+  public void receive_messageStream_allocatesOnlyTheString() {
+    inbound.setMessagesListening(true);
+
+    double perFrame = receiveBytesPerFrame();
+
+    assertEquals(WARMUP_FRAMES + MEASURED_FRAMES, delivered.get());
+    assertTrue("Allocated " + perFrame + " B/frame", perFrame <= MESSAGE_BUDGET);
+  }
+
+  @Test
+  public void send_steadyState_doesNotAllocate() throws Exception {
+    final AtomicLong completed = new AtomicLong();
+    FrameWriter writer = new FrameWriter(new IoEngine() {
+      @Override
+      public int read(ByteBuffer dst) {
+        return -1;
+      }
+
+      @Override
+      public void write(ByteBuffer src) {
+        src.position(src.limit());
+      }
+
+      @Override
+      public ByteBuffer allocate(int capacity) {
+        return ByteBuffer.allocate(capacity);
+      }
+    }, FrameWriter.DEFAULT_QUEUE_CAPACITY, stats, new FrameWriter.Callback() {
+      @Override
+      public void onComplete(Object token, boolean success) {
+        completed.incrementAndGet();
+      }
+
+      @Override
+      public void onWriteError(java.io.IOException e) {
+      }
+    });
+    Thread writerThread = new Thread(writer);
+    writerThread.start();
+
+    String text = new String(stream(1), 3, PAYLOAD_SIZE, "US-ASCII");
+    String utf8 = "caf\u00e9 " + text.substring(6);
+    byte[] binary = new byte[PAYLOAD_SIZE];
+    Object token = new Object();
+
+    sendAll(writer, completed, WARMUP_FRAMES, text, utf8, binary, token);
+
+    long self = Thread.currentThread().getId();
+    long selfBefore = threads.getThreadAllocatedBytes(self);
+    long writerBefore = threads.getThreadAllocatedBytes(writerThread.getId());
+    sendAll(writer, completed, MEASURED_FRAMES, text, utf8, binary, token);
+    long writerAfter = threads.getThreadAllocatedBytes(writerThread.getId());
+    long selfAfter = threads.getThreadAllocatedBytes(self);
+
+    writer.stop();
+    writerThread.join();
+
+    double producerPerFrame = (selfAfter - selfBefore) / (double) MEASURED_FRAMES;
+    double writerPerFrame = (writerAfter - writerBefore) / (double) MEASURED_FRAMES;
+    assertTrue("Producer allocated " + producerPerFrame + " B/frame", producerPerFrame <= SEND_BUDGET);
+    assertTrue("Writer allocated " + writerPerFrame + " B/frame", writerPerFrame <= SEND_BUDGET);
+  }
+
+  private static void sendAll(FrameWriter writer, AtomicLong completed, int frames,
+      String text, String utf8, byte[] binary, Object token) {
+    long target = completed.get() + frames;
+    for (int i = 0; i < frames; i++) {
+      Object payload = i % 3 == 0 ? text : i % 3 == 1 ? utf8 : binary;
+      while (!writer.enqueue(payload, token)) {
+        Thread.yield();
+      }
+    }
+    while (completed.get() < target) {
+      Thread.yield();
+    }
+  }
+}
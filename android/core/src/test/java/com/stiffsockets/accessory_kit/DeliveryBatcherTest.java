@@ -0,0 +1,233 @@
+package com.stiffsockets.accessory_kit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+
+public class DeliveryBatcherTest {
+  private final List<Runnable> posted = new ArrayList<>();
+  private final List<Long> delays = new ArrayList<>();
+  private final List<List<Object>> delivered = new ArrayList<>();
+  private final LinkStats stats = new LinkStats();
+
+  private final DeliveryBatcher batcher = new DeliveryBatcher(new DeliveryBatcher.Scheduler() {
+    @Override
+    public void post(Runnable task) {
+      posted.add(task);
+      delays.add(0L);
+    }
+
+    @Override
+    public void postDelayed(Runnable task, long delayMs) {
+      posted.add(task);
+      delays.add(delayMs);
+    }
+  }, stats, delivered::add);
+
+  private void runPosted() {
+    while (!posted.isEmpty()) {
+      posted.remove(0).run();
+    }
+  }
+
+  @Test
+  public void offer_burstBeforeFlush_isDeliveredAsOneBatch() {
+    batcher.offer("a", 1);
+    batcher.offer("b", 1);
+    batcher.offer("c", 1);
+
+    assertEquals(1, posted.size());
+    runPosted();
+
+    assertEquals(Arrays.asList(Arrays.<Object>asList("a", "b", "c")), delivered);
+  }
+
+  @Test
+  public void offer_countLimit_sealsBatchesInOrder() {
+    batcher.configure(2, 1000, 0);
+
+    for (String s : new String[] {"a", "b", "c", "d", "e"}) {
+      batcher.offer(s, 1);
+    }
+    runPosted();
+
+    assertEquals(Arrays.asList(
+        Arrays.<Object>asList("a", "b"),
+        Arrays.<Object>asList("c", "d"),
+        Arrays.<Object>asList("e")), delivered);
+  }
+
+  @Test
+  public void offer_byteLimit_sealsBatch() {
+    batcher.configure(100, 10, 50);
+
+    batcher.offer("small", 4);
+    batcher.offer("large", 8);
+    batcher.offer("tail", 1);
+    runPosted();
+
+    assertEquals(Arrays.asList(
+        Arrays.<Object>asList("small", "large"),
+        Arrays.<Object>asList("tail")), delivered);
+  }
+
+  @Test
+  public void offer_belowLimits_usesMaxDelay() {
+    batcher.configure(100, 1000, 25);
+
+    batcher.offer("a", 1);
+    batcher.offer("b", 1);
+
+    assertEquals(Arrays.asList(25L), delays);
+  }
+
+  @Test
+  public void offer_timerOfBatchSealedBySize_doesNotFlushNextBatchEarly() {
+    batcher.configure(2, 1000, 25);
+
+    batcher.offer("a", 1);
+    batcher.offer("b", 1);
+    batcher.offer("c", 1);
+    // The timer armed for "a", the flush for the sealed batch, and the timer armed for "c"
+    assertEquals(Arrays.asList(25L, 0L, 25L), delays);
+
+    posted.remove(0).run();
+    posted.remove(0).run();
+    assertEquals(Arrays.asList(Arrays.<Object>asList("a", "b")), delivered);
+    assertEquals(1, batcher.getPendingCount());
+
+    posted.remove(0).run();
+    assertEquals(Arrays.asList(
+        Arrays.<Object>asList("a", "b"),
+        Arrays.<Object>asList("c")), delivered);
+  }
+
+  @Test
+  public void offerAll_deliversOneBatchAfterQueuedMessages() {
+    batcher.configure(2, 1000, 0);
+
+    batcher.offer("a", 1);
+    batcher.offerAll(Arrays.<Object>asList("b", "c", "d"), new int[] {1, 1, 1});
+    batcher.offer("e", 1);
+    runPosted();
+
+    assertEquals(Arrays.asList(
+        Arrays.<Object>asList("a"),
+        Arrays.<Object>asList("b", "c", "d"),
+        Arrays.<Object>asList("e")), delivered);
+  }
+
+  @Test
+  public void offer_fullQueue_dropOldest_keepsNewest() {
+    batcher.configure(2, 1000, 0);
+    batcher.configureQueue(3, 1000, DeliveryBatcher.OverflowPolicy.DROP_OLDEST);
+
+    for (String s : new String[] {"a", "b", "c", "d", "e"}) {
+      batcher.offer(s, 1);
+    }
+    assertEquals(3, batcher.getPendingCount());
+    runPosted();
+
+    assertEquals(Arrays.asList(
+        Arrays.<Object>asList("c", "d"),
+        Arrays.<Object>asList("e")), delivered);
+    assertEquals(2, stats.get(LinkStats.DELIVERY_DROPPED));
+  }
+
+  @Test
+  public void offer_fullQueue_dropNewest_keepsOldest() {
+    batcher.configureQueue(100, 10, DeliveryBatcher.OverflowPolicy.DROP_NEWEST);
+
+    batcher.offer("a", 6);
+    batcher.offer("b", 6);
+    batcher.offer("c", 4);
+    runPosted();
+
+    assertEquals(Arrays.asList(Arrays.<Object>asList("a", "c")), delivered);
+    assertEquals(1, stats.get(LinkStats.DELIVERY_DROPPED));
+  }
+
+  @Test
+  public void offer_fullQueue_block_waitsForDelivery() throws InterruptedException {
+    batcher.configureQueue(1, 1000, DeliveryBatcher.OverflowPolicy.BLOCK);
+    batcher.offer("a", 1);
+
+    CountDownLatch offered = new CountDownLatch(1);
+    Thread reader = new Thread(() -> {
+      batcher.offer("b", 1);
+      offered.countDown();
+    });
+    reader.start();
+    assertFalse(offered.await(100, TimeUnit.MILLISECONDS));
+
+    // Delivering "a" makes room
+    posted.remove(0).run();
+    assertTrue(offered.await(5, TimeUnit.SECONDS));
+    reader.join();
+
+    runPosted();
+
+    // "b" may join the flush that freed its room, or follow in its own batch
+    List<Object> all = new ArrayList<>();
+    for (List<Object> batch : delivered) {
+      all.addAll(batch);
+    }
+    assertEquals(Arrays.<Object>asList("a", "b"), all);
+    assertEquals(1, stats.get(LinkStats.READER_BLOCKED));
+  }
+
+  @Test
+  public void unblock_releasesBlockedOffer() throws InterruptedException {
+    batcher.configureQueue(1, 1000, DeliveryBatcher.OverflowPolicy.BLOCK);
+    batcher.offer("a", 1);
+
+    Thread reader = new Thread(() -> batcher.offer("b", 1));
+    reader.start();
+    while (reader.getState() != Thread.State.WAITING) {
+      Thread.sleep(1);
+    }
+    batcher.unblock();
+    reader.join(5000);
+
+    assertFalse(reader.isAlive());
+    assertEquals(2, batcher.getPendingCount());
+  }
+
+  @Test
+  public void offer_sameKey_replacesPendingMessageInPlace() {
+    batcher.offer("a1", 2, "a");
+    batcher.offer("b1", 2, "b");
+    batcher.offer("a2", 2, "a");
+    batcher.offer("plain", 5);
+    batcher.offer("a3", 2, "a");
+    runPosted();
+    batcher.offer("a4", 2, "a");
+    runPosted();
+
+    assertEquals(Arrays.asList(
+        Arrays.<Object>asList("a3", "b1", "plain"),
+        Arrays.<Object>asList("a4")), delivered);
+    assertEquals(2, stats.get(LinkStats.FRAMES_CONFLATED));
+  }
+
+  @Test
+  public void offer_keyAfterDropOldest_stillReplacesItsSlot() {
+    batcher.configureQueue(2, 1000, DeliveryBatcher.OverflowPolicy.DROP_OLDEST);
+
+    batcher.offer("a1", 1, "a");
+    batcher.offer("b1", 1, "b");
+    batcher.offer("c1", 1, "c");
+    batcher.offer("c2", 1, "c");
+    assertEquals(2, batcher.getPendingCount());
+    runPosted();
+
+    assertEquals(Arrays.asList(Arrays.<Object>asList("b1", "c2")), delivered);
+  }
+}
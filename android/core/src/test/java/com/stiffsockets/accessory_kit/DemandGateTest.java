@@ -0,0 +1,91 @@
+package com.stiffsockets.accessory_kit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+
+public class DemandGateTest {
+  private final DemandGate gate = new DemandGate();
+
+  private Thread awaitInBackground(CountDownLatch passed) {
+    Thread reader = new Thread(() -> {
+      try {
+        gate.awaitDemand();
+        passed.countDown();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    });
+    reader.start();
+    return reader;
+  }
+
+  @Test
+  public void disabled_neverWaits() throws InterruptedException {
+    gate.consume(10);
+
+    assertFalse(gate.awaitDemand());
+    assertEquals(0, gate.getDemand());
+  }
+
+  @Test
+  public void enabled_consumesAndOvershoots() throws InterruptedException {
+    gate.setEnabled(true);
+    gate.grant(3);
+
+    assertFalse(gate.awaitDemand());
+    gate.consume(5);
+    assertEquals(-2, gate.getDemand());
+
+    // Granting less than the overshoot still leaves nothing to read
+    gate.grant(2);
+    assertEquals(0, gate.getDemand());
+  }
+
+  @Test
+  public void awaitDemand_waitsForGrant() throws InterruptedException {
+    gate.setEnabled(true);
+    CountDownLatch passed = new CountDownLatch(1);
+    Thread reader = awaitInBackground(passed);
+
+    assertFalse(passed.await(100, TimeUnit.MILLISECONDS));
+    gate.grant(1);
+    assertTrue(passed.await(5, TimeUnit.SECONDS));
+    reader.join();
+  }
+
+  @Test
+  public void awaitDemand_unblockedBeforeWaiting_returnsAtOnce() throws InterruptedException {
+    gate.setEnabled(true);
+    // The reader reads the generation, then sees a stop() that lands before it waits
+    int generation = gate.generation();
+    gate.unblock();
+
+    assertFalse(gate.awaitDemand(generation));
+  }
+
+  @Test
+  public void awaitDemand_releasedByDisableAndUnblock() throws InterruptedException {
+    gate.setEnabled(true);
+    CountDownLatch passed = new CountDownLatch(2);
+    Thread first = awaitInBackground(passed);
+    while (first.getState() != Thread.State.WAITING) {
+      Thread.sleep(1);
+    }
+    gate.unblock();
+    first.join(5000);
+
+    Thread second = awaitInBackground(passed);
+    while (second.getState() != Thread.State.WAITING) {
+      Thread.sleep(1);
+    }
+    gate.setEnabled(false);
+    second.join(5000);
+
+    assertEquals(0, passed.getCount());
+  }
+}
@@ -0,0 +1,347 @@
+package com.stiffsockets.accessory_kit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import org.junit.Test;
+
+/**
+ * Fuzz and stress tests for {@link FrameDecoder}. Random streams are cut into random chunks and
+ * corrupted with bit flips, truncations, inserted noise and stray SOH bytes. The decoder's
+ * output is compared event for event against a straightforward reference decoder with the same
+ * resync rule, and every frame that was not touched by corruption must be recovered unless a
+ * false frame accepted by that reference decoder covers its start. Decoder work on adversarial
+ * input is counted and must stay within a constant per input byte.
+ *
+ * Runs a fixed number of seeded iterations by default; pass -Dfuzz.iterations=N and
+ * -Dfuzz.seed=S for longer runs or to replay a failure.
+ */
+public class FrameDecoderFuzzTest {
+  private static final int MAX_LENGTH = 65535;
+  private static final int ITERATIONS = Integer.getInteger("fuzz.iterations", 200);
+  private static final long SEED = Long.getLong("fuzz.seed", 0x5EEDL);
+
+  /** A generated stream and the intact frames in it. */
+  private static final class Stream {
+    final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    final List<byte[]> intact = new ArrayList<>();
+    final List<Integer> intactStarts = new ArrayList<>();
+    int lastCorruptionEnd = 0;
+
+    byte[] bytes() {
+      return out.toByteArray();
+    }
+  }
+
+  /** Records decoder events as comparable strings. */
+  private static final class Recorder implements FrameDecoder.Listener {
+    final List<String> events = new ArrayList<>();
+    final List<byte[]> frames = new ArrayList<>();
+
+    @Override
+    public void onFrame(byte[] buffer, int offset, int length) {
+      byte[] copy = Arrays.copyOfRange(buffer, offset, offset + length);
+      frames.add(copy);
+      events.add("frame:" + Arrays.hashCode(copy) + "/" + length);
+    }
+
+    @Override
+    public void onInvalidLength(int length) {
+      events.add("length:" + length);
+    }
+
+    @Override
+    public void onInvalidEot(byte b) {
+      events.add("eot:" + b);
+    }
+
+    @Override
+    public void onBytesSkipped(int count) {
+    }
+  }
+
+  /**
+   * Straightforward decoder with the wire format's reference semantics: a candidate frame is
+   * accepted only when its EOT is where the length says, and any rejected candidate resumes the
+   * search at the byte after its SOH. A candidate still incomplete at the end of input is left
+   * pending. With {@code spans} non-null, the SOH and EOT positions of each accepted frame are
+   * added to it.
+   */
+  private static List<String> referenceDecode(byte[] input, List<int[]> spans) {
+    Recorder recorder = new Recorder();
+    int pos = 0;
+    while (true) {
+      int soh = pos;
+      while (soh < input.length && input[soh] != FrameDecoder.SOH) {
+        soh++;
+      }
+      if (soh + 3 > input.length) {
+        break;
+      }
+      int length = ((input[soh + 1] & 0xFF) << 8) | (input[soh + 2] & 0xFF);
+      if (length == 0 || length > MAX_LENGTH) {
+        recorder.onInvalidLength(length);
+        pos = soh + 1;
+        continue;
+      }
+      int eot = soh + 3 + length;
+      if (eot >= input.length) {
+        break;
+      }
+      if (input[eot] == FrameDecoder.EOT) {
+        recorder.onFrame(input, soh + 3, length);
+        if (spans != null) {
+          spans.add(new int[] {soh, eot});
+        }
+        pos = eot + 1;
+      } else {
+        recorder.onInvalidEot(input[eot]);
+        pos = soh + 1;
+      }
+    }
+    return recorder.events;
+  }
+
+  private static void writeFrame(ByteArrayOutputStream out, byte[] payload) {
+    out.write(FrameDecoder.SOH);
+    out.write((payload.length >> 8) & 0xFF);
+    out.write(payload.length & 0xFF);
+    out.write(payload, 0, payload.length);
+    out.write(FrameDecoder.EOT);
+  }
+
+  /**
+   * Builds a stream of {@code frames} frames. Payloads are printable ASCII and lengths avoid
+   * SOH in either byte, so a real frame start is the only SOH a clean region contains. With
+   * {@code corruptEvery} > 0, roughly one frame in that many is damaged.
+   */
+  private static Stream generate(Random random, int frames, int maxPayload, int corruptEvery) {
+    Stream stream = new Stream();
+    for (int i = 0; i < frames; i++) {
+      int length;
+      do {
+        length = 2 + random.nextInt(maxPayload - 1);
+      } while ((length & 0xFF) == FrameDecoder.SOH || (length >> 8) == FrameDecoder.SOH);
+      byte[] payload = new byte[length];
+      for (int j = 0; j < length; j++) {
+        payload[j] = (byte) (0x20 + random.nextInt(0x5F));
+      }
+
+      ByteArrayOutputStream frame = new ByteArrayOutputStream();
+      writeFrame(frame, payload);
+      byte[] bytes = frame.toByteArray();
+      int start = stream.out.size();
+
+      if (corruptEvery > 0 && random.nextInt(corruptEvery) == 0) {
+        switch (random.nextInt(5)) {
+          case 0:
+            // Bit flip anywhere in the frame
+            int at = random.nextInt(bytes.length);
+            bytes[at] ^= (byte) (1 << random.nextInt(8));
+            break;
+          case 1:
+            // Truncated frame
+            bytes = Arrays.copyOf(bytes, random.nextInt(bytes.length));
+            break;
+          case 2:
+            // Lost EOT
+            bytes = Arrays.copyOf(bytes, bytes.length - 1);
+            break;
+          case 3:
+            // Zero or oversized length
+            bytes[1] = 0;
+            bytes[2] = 0;
+            break;
+          default:
+            // Stray SOH with noise before the frame
+            stream.out.write(FrameDecoder.SOH);
+            stream.out.write(random.nextInt(256));
+            break;
+        }
+        stream.out.write(bytes, 0, bytes.length);
+        stream.lastCorruptionEnd = stream.out.size();
+        continue;
+      }
+
+      stream.out.write(bytes, 0, bytes.length);
+      stream.intact.add(payload);
+      stream.intactStarts.add(start);
+    }
+    return stream;
+  }
+
+  private static Recorder decodeInRandomChunks(byte[] input, Random random) {
+    Recorder recorder = new Recorder();
+    FrameDecoder decoder = new FrameDecoder(MAX_LENGTH, new PayloadPool(), recorder);
+    int pos = 0;
+    while (pos < input.length) {
+      int chunk = random.nextBoolean() ? 1 + random.nextInt(8) : 1 + random.nextInt(20000);
+      chunk = Math.min(chunk, input.length - pos);
+      decoder.decode(input, pos, chunk);
+      pos += chunk;
+    }
+    return recorder;
+  }
+
+  @Test
+  public void randomFragmentation_recoversEveryFrame() {
+    Random random = new Random(SEED);
+    for (int i = 0; i < ITERATIONS; i++) {
+      Stream stream = generate(random, 50, 2 + random.nextInt(4096), 0);
+
+      Recorder recorder = decodeInRandomChunks(stream.bytes(), random);
+
+      assertEquals("seed " + SEED + " iteration " + i,
+          stream.intact.size(), recorder.frames.size());
+      for (int f = 0; f < stream.intact.size(); f++) {
+        assertTrue("seed " + SEED + " iteration " + i + " frame " + f,
+            Arrays.equals(stream.intact.get(f), recorder.frames.get(f)));
+      }
+    }
+  }
+
+  @Test
+  public void corruptedStreams_matchReferenceDecoder() {
+    Random random = new Random(SEED + 1);
+    for (int i = 0; i < ITERATIONS; i++) {
+      Stream stream = generate(random, 60, 2 + random.nextInt(2048), 4);
+      byte[] input = stream.bytes();
+
+      Recorder recorder = decodeInRandomChunks(input, random);
+
+      assertEquals("seed " + SEED + " iteration " + i,
+          referenceDecode(input, null), recorder.events);
+    }
+  }
+
+  @Test
+  public void corruptedStreams_recoverIntactFramesAfterResync() {
+    Random random = new Random(SEED + 2);
+    for (int i = 0; i < ITERATIONS; i++) {
+      Stream stream = generate(random, 80, 2 + random.nextInt(512), 6);
+      // Clean tail, well past the longest length a corrupted header can claim
+      Stream tail = generate(random, 40, 2 + random.nextInt(512), 0);
+      int headLength = stream.out.size();
+      while (tail.out.size() < 2 * (MAX_LENGTH + 4)) {
+        tail = generate(random, tail.intact.size() * 2, 2 + random.nextInt(4096), 0);
+      }
+      byte[] tailBytes = tail.bytes();
+      stream.out.write(tailBytes, 0, tailBytes.length);
+      stream.intact.addAll(tail.intact);
+      for (int start : tail.intactStarts) {
+        stream.intactStarts.add(headLength + start);
+      }
+      byte[] input = stream.bytes();
+
+      Recorder recorder = decodeInRandomChunks(input, random);
+
+      // Resync starts at the byte after a false SOH, so the only way to lose an intact frame is
+      // a damaged header that lines up with a real EOT: the false frame it produces covers the
+      // intact frame's SOH. Every intact frame outside such a span must come back, in order.
+      List<int[]> spans = new ArrayList<>();
+      referenceDecode(input, spans);
+      List<byte[]> expected = new ArrayList<>();
+      int span = 0;
+      for (int f = 0; f < stream.intact.size(); f++) {
+        int start = stream.intactStarts.get(f);
+        while (span < spans.size() && spans.get(span)[1] < start) {
+          span++;
+        }
+        if (span == spans.size() || spans.get(span)[0] >= start) {
+          expected.add(stream.intact.get(f));
+        }
+      }
+
+      // Everything past the reach of the last corruption is among them
+      int reach = stream.lastCorruptionEnd + MAX_LENGTH + 4;
+      int pastReach = 0;
+      for (int start : tail.intactStarts) {
+        if (headLength + start >= reach) {
+          pastReach++;
+        }
+      }
+      assertTrue("seed " + SEED + " iteration " + i, pastReach > 0);
+
+      int matched = 0;
+      for (byte[] frame : recorder.frames) {
+        if (matched < expected.size() && Arrays.equals(expected.get(matched), frame)) {
+          matched++;
+        }
+      }
+      assertEquals("seed " + SEED + " iteration " + i, expected.size(), matched);
+    }
+  }
+
+  /** Decodes {@code input} in 16 KB chunks and returns the decoder's work per input byte. */
+  private static double workPerByte(byte[] input) {
+    FrameDecoder.Listener ignore = new FrameDecoder.Listener() {
+      @Override
+      public void onFrame(byte[] buffer, int offset, int length) {
+      }
+
+      @Override
+      public void onInvalidLength(int length) {
+      }
+
+      @Override
+      public void onInvalidEot(byte b) {
+      }
+
+      @Override
+      public void onBytesSkipped(int count) {
+      }
+    };
+    FrameDecoder decoder = new FrameDecoder(MAX_LENGTH, new PayloadPool(), ignore);
+    for (int pos = 0; pos < input.length; pos += 16384) {
+      decoder.decode(input, pos, Math.min(16384, input.length - pos));
+    }
+    return decoder.work() / (double) input.length;
+  }
+
+  /** Adversarial inputs of {@code size} bytes. */
+  private static byte[][] adversarial(int size, Random random) {
+    byte[] allSoh = new byte[size];
+    Arrays.fill(allSoh, FrameDecoder.SOH);
+
+    // Headers claiming the largest length, never followed by an EOT
+    byte[] longClaims = new byte[size];
+    for (int i = 0; i + 2 < size; i += 3 + random.nextInt(64)) {
+      longClaims[i] = FrameDecoder.SOH;
+      longClaims[i + 1] = (byte) 0xFF;
+      longClaims[i + 2] = (byte) 0xFF;
+    }
+
+    // Zero-length headers back to back
+    byte[] zeroLengths = new byte[size];
+    for (int i = 0; i + 2 < size; i += 3) {
+      zeroLengths[i] = FrameDecoder.SOH;
+    }
+
+    byte[] noise = new byte[size];
+    random.nextBytes(noise);
+    return new byte[][] {allSoh, longClaims, zeroLengths, noise};
+  }
+
+  @Test
+  public void adversarialInput_decodeWorkStaysLinear() {
+    Random random = new Random(SEED + 3);
+    byte[][] small = adversarial(1 << 20, random);
+    byte[][] large = adversarial(8 << 20, random);
+
+    // Per input byte: at most one scan step plus one candidate header, one copy into the
+    // window, one compaction move (half the window stays free) and one rescan
+    double bound = 5.0;
+    for (int k = 0; k < small.length; k++) {
+      double smallWork = workPerByte(small[k]);
+      double largeWork = workPerByte(large[k]);
+
+      assertTrue("input " + k + ": " + smallWork + " work/byte at 1 MB", smallWork <= bound);
+      assertTrue("input " + k + ": " + largeWork + " work/byte at 8 MB", largeWork <= bound);
+    }
+  }
+}
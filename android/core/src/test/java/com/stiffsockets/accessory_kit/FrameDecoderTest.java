@@ -0,0 +1,192 @@
+package com.stiffsockets.accessory_kit;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Test;
+
+public class FrameDecoderTest {
+  private final List<byte[]> frames = new ArrayList<>();
+  private final List<Integer> invalidLengths = new ArrayList<>();
+  private int invalidEots = 0;
+  private int bytesSkipped = 0;
+
+  private final FrameDecoder decoder = new FrameDecoder(65535, new PayloadPool(), new FrameDecoder.Listener() {
+    @Override
+    public void onFrame(byte[] buffer, int offset, int length) {
+      frames.add(Arrays.copyOfRange(buffer, offset, offset + length));
+    }
+
+    @Override
+    public void onInvalidLength(int length) {
+      invalidLengths.add(length);
+    }
+
+    @Override
+    public void onInvalidEot(byte b) {
+      invalidEots++;
+    }
+
+    @Override
+    public void onBytesSkipped(int count) {
+      bytesSkipped += count;
+    }
+  });
+
+  private static byte[] frame(String payload) {
+    return frame(payload.getBytes(StandardCharsets.UTF_8));
+  }
+
+  private static byte[] frame(byte[] data) {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    out.write(FrameDecoder.SOH);
+    out.write((data.length >> 8) & 0xFF);
+    out.write(data.length & 0xFF);
+    out.write(data, 0, data.length);
+    out.write(FrameDecoder.EOT);
+    return out.toByteArray();
+  }
+
+  private static byte[] concat(byte[]... parts) {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    for (byte[] part : parts) {
+      out.write(part, 0, part.length);
+    }
+    return out.toByteArray();
+  }
+
+  @Test
+  public void decode_coalescedFrames_emitsEachFrame() {
+    byte[] input = concat(frame("hello"), frame("world"), frame("!"));
+
+    decoder.decode(input, 0, input.length);
+
+    assertEquals(3, frames.size());
+    assertArrayEquals("hello".getBytes(StandardCharsets.UTF_8), frames.get(0));
+    assertArrayEquals("world".getBytes(StandardCharsets.UTF_8), frames.get(1));
+    assertArrayEquals("!".getBytes(StandardCharsets.UTF_8), frames.get(2));
+  }
+
+  @Test
+  public void decode_byteAtATime_keepsPartialState() {
+    byte[] input = concat(frame("split across reads"), frame("second"));
+
+    for (int i = 0; i < input.length; i++) {
+      decoder.decode(input, i, 1);
+    }
+
+    assertEquals(2, frames.size());
+    assertArrayEquals("split across reads".getBytes(StandardCharsets.UTF_8), frames.get(0));
+    assertArrayEquals("second".getBytes(StandardCharsets.UTF_8), frames.get(1));
+  }
+
+  @Test
+  public void decode_skipsNoiseBeforeSoh() {
+    byte[] input = concat(new byte[] {0x7F, 0x00, 0x04}, frame("ok"));
+
+    decoder.decode(input, 0, input.length);
+
+    assertEquals(1, frames.size());
+    assertArrayEquals("ok".getBytes(StandardCharsets.UTF_8), frames.get(0));
+  }
+
+  @Test
+  public void decode_invalidLength_isReportedAndSkipped() {
+    byte[] input = concat(new byte[] {FrameDecoder.SOH, 0x00, 0x00}, frame("after"));
+
+    decoder.decode(input, 0, input.length);
+
+    assertEquals(Arrays.asList(0), invalidLengths);
+    assertEquals(1, frames.size());
+  }
+
+  @Test
+  public void decode_missingEot_isReported() {
+    byte[] bad = frame("abc");
+    bad[bad.length - 1] = 0x05;
+    byte[] input = concat(bad, frame("next"));
+
+    decoder.decode(input, 0, input.length);
+
+    assertEquals(1, invalidEots);
+    assertEquals(1, frames.size());
+    assertArrayEquals("next".getBytes(StandardCharsets.UTF_8), frames.get(0));
+  }
+
+  @Test
+  public void decode_falseSoh_resyncsOnFrameInsideClaimedLength() {
+    // A stray SOH whose length swallows the real frame that follows it.
+    byte[] input = concat(new byte[] {FrameDecoder.SOH, 0x00, 0x08, 0x33}, frame("inside"), frame("next"));
+
+    decoder.decode(input, 0, input.length);
+
+    assertEquals(1, invalidEots);
+    assertEquals(2, frames.size());
+    assertArrayEquals("inside".getBytes(StandardCharsets.UTF_8), frames.get(0));
+    assertArrayEquals("next".getBytes(StandardCharsets.UTF_8), frames.get(1));
+    assertEquals(4, bytesSkipped);
+  }
+
+  @Test
+  public void decode_falseSohAcrossReads_resyncsOnFrameInsideClaimedLength() {
+    byte[] input = concat(new byte[] {0x42, FrameDecoder.SOH, 0x00, 0x10}, frame("inside"), frame("next"));
+
+    for (int i = 0; i < input.length; i += 3) {
+      decoder.decode(input, i, Math.min(3, input.length - i));
+    }
+
+    assertEquals(1, invalidEots);
+    assertEquals(2, frames.size());
+    assertArrayEquals("inside".getBytes(StandardCharsets.UTF_8), frames.get(0));
+    assertArrayEquals("next".getBytes(StandardCharsets.UTF_8), frames.get(1));
+    assertEquals(4, bytesSkipped);
+  }
+
+  @Test
+  public void decode_noise_countsSkippedBytes() {
+    byte[] input = concat(new byte[] {0x7F, 0x00, 0x04}, frame("ok"), new byte[] {0x10, 0x11});
+
+    decoder.decode(input, 0, input.length);
+
+    assertEquals(1, frames.size());
+    assertEquals(5, bytesSkipped);
+  }
+
+  @Test
+  public void decode_directBuffer_matchesArrayPath() {
+    byte[] input = concat(new byte[] {0x42}, frame("direct"), frame("buffers"));
+    ByteBuffer direct = ByteBuffer.allocateDirect(input.length);
+    direct.put(input, 0, 5).flip();
+
+    decoder.decode(direct);
+    direct.clear();
+    direct.put(input, 5, input.length - 5).flip();
+    decoder.decode(direct);
+
+    assertEquals(0, direct.remaining());
+    assertEquals(2, frames.size());
+    assertArrayEquals("direct".getBytes(StandardCharsets.UTF_8), frames.get(0));
+    assertArrayEquals("buffers".getBytes(StandardCharsets.UTF_8), frames.get(1));
+  }
+
+  @Test
+  public void decode_maxLengthFrame_isAccepted() {
+    byte[] payload = new byte[65535];
+    Arrays.fill(payload, (byte) 0x5A);
+    byte[] input = frame(payload);
+
+    for (int i = 0; i < input.length; i += 16384) {
+      decoder.decode(input, i, Math.min(16384, input.length - i));
+    }
+
+    assertEquals(0, invalidLengths.size());
+    assertEquals(1, frames.size());
+    assertArrayEquals(payload, frames.get(0));
+  }
+}
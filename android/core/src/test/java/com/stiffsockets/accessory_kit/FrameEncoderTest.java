@@ -0,0 +1,78 @@
+package com.stiffsockets.accessory_kit;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import org.junit.Test;
+
+public class FrameEncoderTest {
+  private final FrameEncoder encoder = new FrameEncoder();
+
+  private static byte[] expectedFrame(byte[] data) {
+    byte[] frame = new byte[data.length + 4];
+    frame[0] = FrameDecoder.SOH;
+    frame[1] = (byte) (data.length >> 8);
+    frame[2] = (byte) data.length;
+    System.arraycopy(data, 0, frame, 3, data.length);
+    frame[frame.length - 1] = FrameDecoder.EOT;
+    return frame;
+  }
+
+  private static byte[] remaining(ByteBuffer buffer) {
+    byte[] out = new byte[buffer.remaining()];
+    buffer.get(out);
+    return out;
+  }
+
+  private void assertEncodesLikeGetBytes(String message, ByteBuffer dst) {
+    byte[] data = message.getBytes(StandardCharsets.UTF_8);
+
+    assertEquals(data.length, encoder.encode(message, dst));
+    assertArrayEquals(expectedFrame(data), remaining(dst));
+  }
+
+  @Test
+  public void encode_string_matchesGetBytes() {
+    ByteBuffer heap = ByteBuffer.allocate(65539);
+    ByteBuffer direct = ByteBuffer.allocateDirect(65539);
+
+    for (String message : new String[] {
+        "plain ascii", "caf\u00e9", "\u00e9 first", "mixed \u4e2d\u6587 text", "\ud83d\ude00 emoji",
+        "lone \ud800 surrogate"}) {
+      assertEncodesLikeGetBytes(message, heap);
+      assertEncodesLikeGetBytes(message, direct);
+    }
+  }
+
+  @Test
+  public void encode_bytes_framesPayload() {
+    ByteBuffer dst = ByteBuffer.allocate(65539);
+    byte[] data = {0x00, 0x01, 0x04, (byte) 0xFF};
+
+    assertEquals(4, encoder.encode(data, 0, data.length, dst));
+    assertArrayEquals(expectedFrame(data), remaining(dst));
+  }
+
+  @Test
+  public void encode_tooLong_returnsMinusOne() {
+    ByteBuffer dst = ByteBuffer.allocate(65539);
+    char[] chars = new char[40000];
+    Arrays.fill(chars, '\u00e9');
+
+    assertEquals(-1, encoder.encode(new String(chars), dst));
+    assertEquals(-1, encoder.encode(new byte[65536], 0, 65536, dst));
+  }
+
+  @Test
+  public void encode_maxLengthAscii_fits() {
+    ByteBuffer dst = ByteBuffer.allocateDirect(65539);
+    char[] chars = new char[65535];
+    Arrays.fill(chars, 'x');
+
+    assertEquals(65535, encoder.encode(new String(chars), dst));
+    assertEquals(65539, dst.remaining());
+  }
+}
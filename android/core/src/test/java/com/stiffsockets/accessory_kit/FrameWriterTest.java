@@ -0,0 +1,166 @@
+package com.stiffsockets.accessory_kit;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import org.junit.Test;
+
+public class FrameWriterTest {
+  @Test
+  public void enqueue_writesFramesInOrder() throws Exception {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    final CountDownLatch done = new CountDownLatch(3);
+    final List<Object> completed = new ArrayList<>();
+    LinkStats stats = new LinkStats();
+    FrameWriter writer = new FrameWriter(
+        new StreamIoEngine(new ByteArrayInputStream(new byte[0]), out), 16, stats,
+        new FrameWriter.Callback() {
+          @Override
+          public void onComplete(Object token, boolean success) {
+            synchronized (completed) {
+              completed.add(token);
+            }
+            done.countDown();
+          }
+
+          @Override
+          public void onWriteError(IOException e) {
+          }
+        });
+    Thread thread = new Thread(writer);
+    thread.start();
+
+    writer.enqueue("hi", 1);
+    writer.enqueue(new byte[] {0x7F}, 2);
+    writer.enqueue("\u00e9", 3);
+
+    done.await(5, TimeUnit.SECONDS);
+    writer.stop();
+    thread.join();
+
+    assertEquals(Arrays.<Object>asList(1, 2, 3), completed);
+    assertEquals(3, stats.get(LinkStats.FRAMES_SENT));
+    assertEquals(5, stats.get(LinkStats.BYTES_SENT));
+    assertArrayEquals(new byte[] {
+        0x01, 0x00, 0x02, 'h', 'i', 0x04,
+        0x01, 0x00, 0x01, 0x7F, 0x04,
+        0x01, 0x00, 0x02, (byte) 0xC3, (byte) 0xA9, 0x04}, out.toByteArray());
+  }
+
+  @Test
+  public void enqueue_afterStop_isRejected() {
+    LinkStats stats = new LinkStats();
+    FrameWriter writer = new FrameWriter(
+        new StreamIoEngine(new ByteArrayInputStream(new byte[0]), new ByteArrayOutputStream()), 4,
+        stats,
+        new FrameWriter.Callback() {
+          @Override
+          public void onComplete(Object token, boolean success) {
+          }
+
+          @Override
+          public void onWriteError(IOException e) {
+          }
+        });
+
+    writer.stop();
+
+    assertFalse(writer.enqueue("late", 1));
+    assertEquals(1, stats.get(LinkStats.SEND_FAILURES));
+    assertEquals(0, stats.get(LinkStats.SEND_QUEUE_FULL));
+  }
+
+  @Test
+  public void enqueue_fullQueue_countsFailure() {
+    LinkStats stats = new LinkStats();
+    FrameWriter writer = new FrameWriter(
+        new StreamIoEngine(new ByteArrayInputStream(new byte[0]), new ByteArrayOutputStream()), 2,
+        stats,
+        new FrameWriter.Callback() {
+          @Override
+          public void onComplete(Object token, boolean success) {
+          }
+
+          @Override
+          public void onWriteError(IOException e) {
+          }
+        });
+
+    // Nothing drains the queue without a writer thread
+    int accepted = 0;
+    while (writer.enqueue("x", accepted)) {
+      accepted++;
+    }
+
+    assertEquals(1, stats.get(LinkStats.SEND_FAILURES));
+    assertEquals(1, stats.get(LinkStats.SEND_QUEUE_FULL));
+  }
+
+  @Test
+  public void stop_racingEnqueue_completesEveryAcceptedRequestOnce() throws Exception {
+    final int maxRequests = 1 << 16;
+    for (int round = 0; round < 50; round++) {
+      final AtomicIntegerArray accepted = new AtomicIntegerArray(maxRequests);
+      final AtomicIntegerArray completed = new AtomicIntegerArray(maxRequests);
+      final AtomicInteger next = new AtomicInteger();
+      final FrameWriter writer = new FrameWriter(
+          new StreamIoEngine(new ByteArrayInputStream(new byte[0]), new ByteArrayOutputStream()), 16,
+          new LinkStats(),
+          new FrameWriter.Callback() {
+            @Override
+            public void onComplete(Object token, boolean success) {
+              completed.incrementAndGet((Integer) token);
+            }
+
+            @Override
+            public void onWriteError(IOException e) {
+            }
+          });
+      Thread writerThread = new Thread(writer);
+      writerThread.start();
+
+      Thread[] producers = new Thread[4];
+      for (int p = 0; p < producers.length; p++) {
+        producers[p] = new Thread(() -> {
+          // Keep offering for a while after stop(), so offers land around the final drain
+          int afterStop = 0;
+          while (afterStop < 2000) {
+            if (!writer.isRunning()) {
+              afterStop++;
+            }
+            int id = next.getAndIncrement();
+            if (id >= maxRequests) {
+              break;
+            }
+            if (writer.enqueue("x", id)) {
+              accepted.set(id, 1);
+            }
+          }
+        });
+        producers[p].start();
+      }
+      Thread.sleep(1);
+      writer.stop();
+      for (Thread producer : producers) {
+        producer.join();
+      }
+      writerThread.join();
+
+      int total = Math.min(next.get(), maxRequests);
+      for (int id = 0; id < total; id++) {
+        assertEquals("round " + round + " request " + id, accepted.get(id), completed.get(id));
+      }
+    }
+  }
+}
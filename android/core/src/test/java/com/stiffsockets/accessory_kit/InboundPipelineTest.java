@@ -0,0 +1,223 @@
+package com.stiffsockets.accessory_kit;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Test;
+
+public class InboundPipelineTest {
+  private final List<Runnable> posted = new ArrayList<>();
+  private final List<Object> messages = new ArrayList<>();
+  private final List<Object> bytes = new ArrayList<>();
+  private final LinkStats stats = new LinkStats();
+  private final DemandGate demand = new DemandGate();
+
+  private final DeliveryBatcher.Scheduler scheduler = new DeliveryBatcher.Scheduler() {
+    @Override
+    public void post(Runnable task) {
+      posted.add(task);
+    }
+
+    @Override
+    public void postDelayed(Runnable task, long delayMs) {
+      posted.add(task);
+    }
+  };
+
+  private final DeliveryBatcher messageBatcher = new DeliveryBatcher(scheduler, stats, messages::addAll);
+  private final InboundPipeline pipeline = new InboundPipeline(stats, messageBatcher,
+      new DeliveryBatcher(scheduler, stats, bytes::addAll), demand);
+
+  private void feed(String payload) {
+    byte[] data = payload.getBytes(StandardCharsets.UTF_8);
+    // Frames usually sit inside a larger read buffer
+    byte[] buffer = new byte[data.length + 8];
+    System.arraycopy(data, 0, buffer, 3, data.length);
+    pipeline.onFrame(buffer, 3, data.length);
+  }
+
+  private void runPosted() {
+    while (!posted.isEmpty()) {
+      posted.remove(0).run();
+    }
+  }
+
+  @Test
+  public void onFrame_withoutListeners_isReplayedToFirstListener() {
+    feed("early");
+    feed("burst");
+    runPosted();
+    assertEquals(0, messages.size() + bytes.size());
+    assertEquals(2, pipeline.getReplayDepth());
+
+    pipeline.setMessagesListening(true);
+    feed("live");
+    runPosted();
+
+    assertEquals(Arrays.<Object>asList("early", "burst", "live"), messages);
+    assertEquals(2, stats.get(LinkStats.FRAMES_REPLAYED));
+    assertEquals(0, stats.get(LinkStats.FRAMES_DROPPED));
+
+    // Already drained; a second stream starts empty
+    pipeline.setBytesListening(true);
+    runPosted();
+    assertEquals(0, bytes.size());
+  }
+
+  @Test
+  public void onFrame_replayFull_dropsOldest() {
+    pipeline.setReplayLimits(2, 1024);
+    feed("a");
+    feed("b");
+    feed("c");
+
+    pipeline.setBytesListening(true);
+    runPosted();
+
+    assertEquals(2, bytes.size());
+    assertArrayEquals("b".getBytes(StandardCharsets.UTF_8), (byte[]) bytes.get(0));
+    assertArrayEquals("c".getBytes(StandardCharsets.UTF_8), (byte[]) bytes.get(1));
+    assertEquals(1, stats.get(LinkStats.FRAMES_DROPPED));
+  }
+
+  @Test
+  public void onFrame_withoutListenersOrReplay_isCountedAsDropped() {
+    pipeline.setReplayLimits(0, 0);
+    feed("lost");
+    pipeline.setMessagesListening(true);
+    runPosted();
+
+    assertEquals(0, messages.size() + bytes.size());
+    assertEquals(1, stats.get(LinkStats.FRAMES_RECEIVED));
+    assertEquals(1, stats.get(LinkStats.FRAMES_DROPPED));
+  }
+
+  @Test
+  public void onFrame_goesOnlyToListeningStreams() {
+    pipeline.setBytesListening(true);
+    feed("raw");
+    pipeline.setMessagesListening(true);
+    pipeline.setBytesListening(false);
+    feed("text");
+    runPosted();
+
+    assertEquals(1, bytes.size());
+    assertArrayEquals("raw".getBytes(StandardCharsets.UTF_8), (byte[]) bytes.get(0));
+    assertEquals(Arrays.<Object>asList("text"), messages);
+    assertEquals(7, stats.get(LinkStats.BYTES_RECEIVED));
+    assertEquals(0, stats.get(LinkStats.FRAMES_DROPPED));
+  }
+
+  @Test
+  public void onFrame_unsubscribedTopic_isFilteredBeforeDemand() {
+    demand.setEnabled(true);
+    demand.grant(10);
+    pipeline.setMessagesListening(true);
+    pipeline.setTopicKey(PayloadKey.prefix((byte) ':', 16));
+    pipeline.subscribe("temp".getBytes(StandardCharsets.UTF_8));
+
+    feed("temp:21.5");
+    feed("humidity:40");
+    feed("untagged");
+    pipeline.unsubscribe("temp".getBytes(StandardCharsets.UTF_8));
+    feed("temp:22.0");
+    runPosted();
+
+    assertEquals(Arrays.<Object>asList("temp:21.5", "untagged"), messages);
+    assertEquals(2, stats.get(LinkStats.FRAMES_FILTERED));
+    assertEquals(4, stats.get(LinkStats.FRAMES_RECEIVED));
+    assertEquals(8, demand.getDemand());
+  }
+
+  @Test
+  public void onFrame_droppedByOverflow_refundsDemand() {
+    demand.setEnabled(true);
+    demand.grant(10);
+    pipeline.setMessagesListening(true);
+    messageBatcher.configureQueue(2, 1000, DeliveryBatcher.OverflowPolicy.DROP_NEWEST);
+
+    for (int i = 0; i < 5; i++) {
+      feed("m" + i);
+    }
+    messageBatcher.configureQueue(2, 1000, DeliveryBatcher.OverflowPolicy.DROP_OLDEST);
+    feed("m5");
+
+    // Only the two queued messages will reach Dart
+    assertEquals(4, stats.get(LinkStats.DELIVERY_DROPPED));
+    assertEquals(8, demand.getDemand());
+    runPosted();
+    assertEquals(Arrays.<Object>asList("m1", "m5"), messages);
+  }
+
+  @Test
+  public void onFrame_conflatedWithDemand_neverStallsReader() {
+    int window = 4;
+    demand.setEnabled(true);
+    demand.grant(window);
+    pipeline.setMessagesListening(true);
+    pipeline.setConflationKey(PayloadKey.prefix((byte) ':', 16));
+
+    for (int round = 0; round < 50; round++) {
+      for (int i = 0; i < 10; i++) {
+        // The reader only waits once demand is used up
+        assertTrue(demand.getDemand() > 0);
+        feed("temp:" + round + "." + i);
+      }
+      runPosted();
+      // Top up for what was received, as flowControlledMessageStream does
+      demand.grant(messages.size());
+      messages.clear();
+    }
+
+    assertEquals(window, demand.getDemand());
+    assertEquals(50 * 9, stats.get(LinkStats.FRAMES_CONFLATED));
+  }
+
+  @Test
+  public void onFrame_evictedFromReplay_refundsDemand() {
+    demand.setEnabled(true);
+    demand.grant(10);
+    pipeline.setReplayLimits(2, 1000);
+
+    for (int i = 0; i < 5; i++) {
+      feed("m" + i);
+    }
+    assertEquals(3, stats.get(LinkStats.FRAMES_DROPPED));
+    assertEquals(8, demand.getDemand());
+
+    pipeline.clearReplay();
+    assertEquals(10, demand.getDemand());
+  }
+
+  @Test
+  public void decodeErrors_burst_logsOneWarning() {
+    List<String> lines = new ArrayList<>();
+    AccessoryLog.resetDecodeErrorSampling();
+    AccessoryLog.setSink((priority, tag, message, error) -> lines.add(message));
+    try {
+      for (int i = 0; i < 1000; i++) {
+        pipeline.onInvalidLength(0);
+        pipeline.onInvalidEot((byte) 0x05);
+      }
+    } finally {
+      AccessoryLog.setSink((priority, tag, message, error) -> { });
+    }
+
+    assertEquals(Arrays.asList("Invalid message length: 0"), lines);
+    assertEquals(2000, stats.get(LinkStats.RESYNCS));
+  }
+
+  @Test
+  public void decodeErrors_countResyncs() {
+    pipeline.onInvalidLength(0);
+    pipeline.onInvalidEot((byte) 0x05);
+
+    assertEquals(2, stats.get(LinkStats.RESYNCS));
+    assertEquals(2, stats.decodeErrors());
+  }
+}
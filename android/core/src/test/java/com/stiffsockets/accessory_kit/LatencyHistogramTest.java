@@ -0,0 +1,44 @@
+package com.stiffsockets.accessory_kit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class LatencyHistogramTest {
+  @Test
+  public void bucketOf_upperBoundOf_coverValue() {
+    long[] values = {0, 1, 15, 16, 17, 31, 32, 1000, 123456, 999999999L, 1L << 40};
+    for (long v : values) {
+      int bucket = LatencyHistogram.bucketOf(v);
+      assertTrue("value " + v, LatencyHistogram.upperBoundOf(bucket) >= v);
+      assertTrue("value " + v, bucket == 0 || LatencyHistogram.upperBoundOf(bucket - 1) < v);
+    }
+  }
+
+  @Test
+  public void getPercentile_isWithinBucketPrecision() {
+    LatencyHistogram histogram = new LatencyHistogram();
+    for (int i = 1; i <= 1000; i++) {
+      histogram.record(i * 1000L);
+    }
+
+    assertEquals(1000, histogram.getCount());
+    long p50 = histogram.getPercentile(50);
+    long p99 = histogram.getPercentile(99);
+    assertTrue(p50 >= 500_000 && p50 <= 500_000 * 1.07);
+    assertTrue(p99 >= 990_000 && p99 <= 990_000 * 1.07);
+    assertTrue(histogram.getPercentile(100) >= 1_000_000);
+  }
+
+  @Test
+  public void reset_clearsCounts() {
+    LatencyHistogram histogram = new LatencyHistogram();
+    histogram.record(5000);
+
+    histogram.reset();
+
+    assertEquals(0, histogram.getCount());
+    assertEquals(0, histogram.getPercentile(99));
+  }
+}
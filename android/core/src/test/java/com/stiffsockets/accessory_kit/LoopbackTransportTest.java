@@ -0,0 +1,219 @@
+package com.stiffsockets.accessory_kit;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+
+public class LoopbackTransportTest {
+  @Test
+  public void write_wrapsRingAndReachesPeer() throws Exception {
+    LoopbackTransport device = LoopbackTransport.create(8);
+    LoopbackTransport host = device.peer();
+    ByteBuffer dst = ByteBuffer.allocate(8);
+
+    host.write(ByteBuffer.wrap(new byte[] {1, 2, 3, 4, 5}));
+    assertEquals(5, device.read(dst));
+    host.write(ByteBuffer.wrap(new byte[] {6, 7, 8, 9, 10, 11}));
+    dst.clear();
+    assertEquals(6, device.read(dst));
+
+    dst.flip();
+    byte[] got = new byte[dst.remaining()];
+    dst.get(got);
+    assertArrayEquals(new byte[] {6, 7, 8, 9, 10, 11}, got);
+  }
+
+  @Test
+  public void close_peerDrainsThenReadsEndOfStream() throws Exception {
+    LoopbackTransport device = LoopbackTransport.create();
+    LoopbackTransport host = device.peer();
+
+    host.write(ByteBuffer.wrap(new byte[] {42}));
+    host.close();
+
+    ByteBuffer dst = ByteBuffer.allocate(4);
+    assertEquals(1, device.read(dst));
+    assertEquals(-1, device.read(dst));
+  }
+
+  @Test
+  public void pipeline_framesWrittenOnHostAreDecodedOnDevice() throws Exception {
+    LoopbackTransport device = LoopbackTransport.create(1024);
+    LoopbackTransport host = device.peer();
+    final List<String> received = new ArrayList<>();
+    final CountDownLatch done = new CountDownLatch(1);
+    LinkStats stats = new LinkStats();
+
+    FrameDecoder decoder = new FrameDecoder(65535, new PayloadPool(), new FrameDecoder.Listener() {
+      @Override
+      public void onFrame(byte[] buffer, int offset, int length) {
+        received.add(new String(buffer, offset, length, StandardCharsets.UTF_8));
+      }
+
+      @Override
+      public void onInvalidLength(int length) {
+      }
+
+      @Override
+      public void onInvalidEot(byte b) {
+      }
+
+      @Override
+      public void onBytesSkipped(int count) {
+      }
+    });
+    FrameReader reader = new FrameReader(device, decoder, FrameReader.Mode.BLOCKING, 0,
+        new ReadBufferSizer(256, 256, 4096), stats, new DemandGate(), new FrameReader.Callback() {
+          @Override
+          public void onEndOfStream(FrameReader r) {
+            done.countDown();
+          }
+
+          @Override
+          public void onReadError(IOException e) {
+          }
+        });
+    FrameWriter writer = new FrameWriter(host, 128, new LinkStats(), new FrameWriter.Callback() {
+      @Override
+      public void onComplete(Object token, boolean success) {
+        if (token != null) {
+          host.close();
+        }
+      }
+
+      @Override
+      public void onWriteError(IOException e) {
+      }
+    });
+    Thread readerThread = new Thread(reader);
+    Thread writerThread = new Thread(writer);
+    readerThread.start();
+    writerThread.start();
+
+    // Frames larger than the ring exercise writer stalls
+    StringBuilder large = new StringBuilder();
+    for (int i = 0; i < 3000; i++) {
+      large.append((char) ('a' + i % 26));
+    }
+    for (int i = 0; i < 99; i++) {
+      writer.enqueue("frame " + i, null);
+    }
+    writer.enqueue(large.toString(), "last");
+
+    assertEquals(true, done.await(5, TimeUnit.SECONDS));
+    writer.stop();
+    readerThread.join();
+    writerThread.join();
+
+    assertEquals(100, received.size());
+    assertEquals("frame 0", received.get(0));
+    assertEquals("frame 98", received.get(98));
+    assertEquals(large.toString(), received.get(99));
+  }
+
+  @Test
+  public void reader_stoppedDuringRead_doesNotDecodeLateBytes() throws Exception {
+    LoopbackTransport device = LoopbackTransport.create(1024);
+    LoopbackTransport host = device.peer();
+    final List<String> received = new ArrayList<>();
+
+    FrameDecoder decoder = new FrameDecoder(65535, new PayloadPool(), new FrameDecoder.Listener() {
+      @Override
+      public void onFrame(byte[] buffer, int offset, int length) {
+        received.add(new String(buffer, offset, length, StandardCharsets.UTF_8));
+      }
+
+      @Override
+      public void onInvalidLength(int length) {
+      }
+
+      @Override
+      public void onInvalidEot(byte b) {
+      }
+
+      @Override
+      public void onBytesSkipped(int count) {
+      }
+    });
+    FrameReader reader = new FrameReader(device, decoder, FrameReader.Mode.BLOCKING, 0,
+        new ReadBufferSizer(256, 256, 4096), new LinkStats(), new DemandGate(), new FrameReader.Callback() {
+          @Override
+          public void onEndOfStream(FrameReader r) {
+          }
+
+          @Override
+          public void onReadError(IOException e) {
+          }
+        });
+    Thread readerThread = new Thread(reader);
+    readerThread.start();
+    while (readerThread.getState() != Thread.State.WAITING && readerThread.getState() != Thread.State.TIMED_WAITING) {
+      Thread.sleep(1);
+    }
+
+    // A newer connection has taken over; bytes that wake the old reader must not reach its decoder
+    reader.stop();
+    host.write(ByteBuffer.wrap(new byte[] {FrameDecoder.SOH, 0x00, 0x02, 'h', 'i', FrameDecoder.EOT}));
+    readerThread.join(5000);
+
+    assertEquals(false, readerThread.isAlive());
+    assertEquals(0, received.size());
+  }
+
+  @Test
+  public void reader_stoppedWithoutDemand_exits() throws Exception {
+    LoopbackTransport device = LoopbackTransport.create(1024);
+    FrameDecoder decoder = new FrameDecoder(65535, new PayloadPool(), new FrameDecoder.Listener() {
+      @Override
+      public void onFrame(byte[] buffer, int offset, int length) {
+      }
+
+      @Override
+      public void onInvalidLength(int length) {
+      }
+
+      @Override
+      public void onInvalidEot(byte b) {
+      }
+
+      @Override
+      public void onBytesSkipped(int count) {
+      }
+    });
+    DemandGate demand = new DemandGate();
+    demand.setEnabled(true);
+
+    // Stop at every point of the loop, including between its running check and the wait
+    for (int i = 0; i < 200; i++) {
+      FrameReader reader = new FrameReader(device, decoder, FrameReader.Mode.BLOCKING, 0,
+          new ReadBufferSizer(256, 256, 4096), new LinkStats(), demand, new FrameReader.Callback() {
+            @Override
+            public void onEndOfStream(FrameReader r) {
+            }
+
+            @Override
+            public void onReadError(IOException e) {
+            }
+          });
+      Thread readerThread = new Thread(reader);
+      readerThread.start();
+      if (i % 2 == 0) {
+        while (readerThread.getState() != Thread.State.WAITING) {
+          Thread.sleep(1);
+        }
+      }
+      reader.stop();
+      readerThread.join(5000);
+
+      assertEquals("iteration " + i, false, readerThread.isAlive());
+    }
+  }
+}
@@ -0,0 +1,66 @@
+package com.stiffsockets.accessory_kit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class MpscQueueTest {
+  @Test
+  public void offer_full_returnsFalse() {
+    MpscQueue<Integer> queue = new MpscQueue<>(3);
+
+    assertEquals(4, queue.capacity());
+    for (int i = 0; i < 4; i++) {
+      assertTrue(queue.offer(i));
+    }
+    assertFalse(queue.offer(4));
+    assertEquals(4, queue.size());
+  }
+
+  @Test
+  public void poll_returnsInFifoOrder() {
+    MpscQueue<Integer> queue = new MpscQueue<>(8);
+    for (int i = 0; i < 20; i++) {
+      queue.offer(i);
+      assertEquals(Integer.valueOf(i), queue.poll());
+    }
+    assertNull(queue.poll());
+  }
+
+  @Test
+  public void offer_concurrentProducers_keepPerProducerOrder() throws InterruptedException {
+    final int producers = 4;
+    final int perProducer = 20000;
+    final MpscQueue<long[]> queue = new MpscQueue<>(1024);
+    Thread[] threads = new Thread[producers];
+    for (int p = 0; p < producers; p++) {
+      final int id = p;
+      threads[p] = new Thread(() -> {
+        for (int i = 0; i < perProducer; i++) {
+          while (!queue.offer(new long[] {id, i})) {
+            Thread.yield();
+          }
+        }
+      });
+      threads[p].start();
+    }
+
+    int[] next = new int[producers];
+    int received = 0;
+    while (received < producers * perProducer) {
+      long[] e = queue.poll();
+      if (e == null) {
+        continue;
+      }
+      assertEquals(next[(int) e[0]]++, e[1]);
+      received++;
+    }
+    for (Thread t : threads) {
+      t.join();
+    }
+    assertEquals(0, queue.size());
+  }
+}
@@ -0,0 +1,48 @@
+package com.stiffsockets.accessory_kit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import org.junit.Test;
+
+public class PayloadKeyTest {
+  private static byte[] bytes(String s) {
+    return s.getBytes(StandardCharsets.UTF_8);
+  }
+
+  @Test
+  public void byteRange_readsFixedBytes() {
+    PayloadKey key = PayloadKey.byteRange(1, 2);
+    byte[] buffer = bytes("xxA7payload");
+
+    assertEquals("A7", key.extract(bytes("?A7other"), 0, 8));
+    assertEquals("7p", key.extract(buffer, 2, 9));
+    assertNull(key.extract(buffer, 2, 2));
+  }
+
+  @Test
+  public void prefix_readsUpToDelimiter() {
+    PayloadKey key = PayloadKey.prefix((byte) ':', 4);
+
+    assertEquals("temp", key.extract(bytes("temp:21.5"), 0, 9));
+    assertEquals("", key.extract(bytes(":x"), 0, 2));
+    assertNull(key.extract(bytes("humidity:40"), 0, 11));
+    assertNull(key.extract(bytes("no delimiter"), 0, 12));
+  }
+
+  @Test
+  public void matches_comparesKeyInPlace() {
+    PayloadKey key = PayloadKey.prefix((byte) ':', 8);
+    byte[] buffer = bytes("..temp:21.5");
+
+    assertTrue(key.matches(buffer, 2, 9, bytes("temp")));
+    assertFalse(key.matches(buffer, 2, 9, bytes("tem")));
+    assertFalse(key.matches(buffer, 2, 9, bytes("tempo")));
+    assertFalse(key.matches(bytes("untagged"), 0, 8, bytes("untagged")));
+    assertTrue(key.hasKey(buffer, 2, 9));
+    assertFalse(key.hasKey(bytes("untagged"), 0, 8));
+  }
+}
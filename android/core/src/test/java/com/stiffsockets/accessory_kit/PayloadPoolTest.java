@@ -0,0 +1,43 @@
+package com.stiffsockets.accessory_kit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Test;
+
+public class PayloadPoolTest {
+  @Test
+  public void acquire_roundsUpToSizeClass() {
+    PayloadPool pool = new PayloadPool();
+
+    assertEquals(64, pool.acquire(1).length);
+    assertEquals(64, pool.acquire(64).length);
+    assertEquals(128, pool.acquire(65).length);
+    assertEquals(65536, pool.acquire(65535).length);
+  }
+
+  @Test
+  public void release_reusesBufferWithinClass() {
+    PayloadPool pool = new PayloadPool();
+    byte[] buffer = pool.acquire(40000);
+
+    pool.release(buffer);
+
+    assertSame(buffer, pool.acquire(33000));
+    assertNotSame(buffer, pool.acquire(33000));
+  }
+
+  @Test
+  public void release_dropsBuffersBeyondClassCapacity() {
+    PayloadPool pool = new PayloadPool(1);
+    byte[] first = pool.acquire(100);
+    byte[] second = pool.acquire(100);
+
+    pool.release(first);
+    pool.release(second);
+
+    assertSame(first, pool.acquire(100));
+    assertNotSame(second, pool.acquire(100));
+  }
+}
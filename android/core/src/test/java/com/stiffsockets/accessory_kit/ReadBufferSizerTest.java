@@ -0,0 +1,47 @@
+package com.stiffsockets.accessory_kit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import org.junit.Test;
+
+public class ReadBufferSizerTest {
+  @Test
+  public void onRead_fullReads_growUpToMax() {
+    ReadBufferSizer sizer = new ReadBufferSizer(16384, 16384, 65536);
+
+    for (int i = 0; i < 100; i++) {
+      sizer.onRead(sizer.size());
+    }
+
+    assertEquals(65536, sizer.size());
+  }
+
+  @Test
+  public void onRead_smallReads_shrinkDownToMin() {
+    ReadBufferSizer sizer = new ReadBufferSizer(65536, 16384, 65536);
+
+    for (int i = 0; i < 1000; i++) {
+      sizer.onRead(100);
+    }
+
+    assertEquals(16384, sizer.size());
+  }
+
+  @Test
+  public void onRead_mixedReads_keepSize() {
+    ReadBufferSizer sizer = new ReadBufferSizer(32768, 16384, 65536);
+
+    for (int i = 0; i < 1000; i++) {
+      assertFalse(sizer.onRead(i % 2 == 0 ? 32768 : 100));
+    }
+
+    assertEquals(32768, sizer.size());
+  }
+
+  @Test
+  public void constructor_clampsInitialSize() {
+    assertEquals(16384, new ReadBufferSizer(64, 16384, 65536).size());
+    assertEquals(65536, new ReadBufferSizer(1 << 20, 16384, 65536).size());
+  }
+}
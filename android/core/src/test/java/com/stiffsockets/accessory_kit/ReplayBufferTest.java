@@ -0,0 +1,58 @@
+package com.stiffsockets.accessory_kit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertArrayEquals;
+
+import java.util.List;
+import org.junit.Test;
+
+public class ReplayBufferTest {
+  private final ReplayBuffer buffer = new ReplayBuffer();
+
+  @Test
+  public void offer_countLimit_evictsOldest() {
+    buffer.configure(2, 1000);
+    byte[] a = {1};
+    byte[] b = {2};
+    byte[] c = {3};
+
+    assertEquals(0, buffer.offer(a, 0, a.length));
+    assertEquals(0, buffer.offer(b, 0, b.length));
+    assertEquals(1, buffer.offer(c, 0, c.length));
+
+    List<byte[]> drained = buffer.drain();
+    assertEquals(2, drained.size());
+    assertArrayEquals(b, drained.get(0));
+    assertArrayEquals(c, drained.get(1));
+    assertEquals(0, buffer.size());
+  }
+
+  @Test
+  public void offer_byteLimit_evictsUntilFrameFits() {
+    buffer.configure(100, 10);
+    buffer.offer(new byte[4], 0, 4);
+    buffer.offer(new byte[4], 0, 4);
+
+    assertEquals(2, buffer.offer(new byte[8], 0, 8));
+    assertEquals(1, buffer.size());
+  }
+
+  @Test
+  public void offer_frameLargerThanLimit_isRejected() {
+    buffer.configure(100, 10);
+    buffer.offer(new byte[4], 0, 4);
+
+    assertEquals(1, buffer.offer(new byte[11], 0, 11));
+    assertEquals(1, buffer.size());
+  }
+
+  @Test
+  public void configure_zero_disablesAndClears() {
+    buffer.offer(new byte[4], 0, 4);
+    buffer.offer(new byte[4], 0, 4);
+
+    assertEquals(2, buffer.configure(0, 0));
+    assertEquals(1, buffer.offer(new byte[1], 0, 1));
+    assertEquals(0, buffer.size());
+  }
+}
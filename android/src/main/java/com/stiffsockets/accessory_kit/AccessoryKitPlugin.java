@@ -29,19 +29,17 @@ import android.os.Build;
 import android.os.Handler;
 import android.os.Looper;
 import android.os.ParcelFileDescriptor;
+import android.os.Trace;
 import android.util.Log;
 
 import androidx.annotation.NonNull;
 
-import java.io.FileDescriptor;
-import java.io.FileInputStream;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.nio.ByteBuffer;
-import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
-import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import io.flutter.embedding.engine.plugins.FlutterPlugin;
 import io.flutter.embedding.engine.plugins.activity.ActivityAware;
@@ -59,13 +57,13 @@ public class AccessoryKitPlugin implements FlutterPlugin, MethodCallHandler, Act
   private static final String ACTION_USB_PERMISSION = "com.stiffsockets.accessory_kit.USB_PERMISSION";
   
   // Protocol constants
-  private static final byte SOH = 0x01;  // Start of Header
-  private static final byte EOT = 0x04;  // End of Transmission
-  private static final int MAX_BUFFER_SIZE = 16384;  // 16KB buffer
+  private static final int MAX_PAYLOAD_SIZE = 65535;  // Largest length the 2-byte field allows
   
   // Method channel constants
   private static final String CHANNEL_NAME = "accessory_kit";
   private static final String MESSAGE_CHANNEL_NAME = "accessory_kit/messages";
+  private static final String BYTES_CHANNEL_NAME = "accessory_kit/bytes";
+  private static final String STATS_CHANNEL_NAME = "accessory_kit/stats";
   private static final String STATE_CHANNEL_NAME = "accessory_kit/state";
   
   // Connection states
@@ -75,11 +73,19 @@ public class AccessoryKitPlugin implements FlutterPlugin, MethodCallHandler, Act
   private static final String STATE_PERMISSION_REQUESTED = "permissionRequested";
   private static final String STATE_SEARCHING = "searching";
 
+  // I/O engines
+  private static final String IO_ENGINE_STREAM = "stream";
+  private static final String IO_ENGINE_CHANNEL = "channel";
+
   // Plugin fields
   private MethodChannel channel;
   private EventChannel messageChannel;
+  private EventChannel bytesChannel;
+  private EventChannel statsChannel;
   private EventChannel stateChannel;
   private EventChannel.EventSink messageSink;
+  private EventChannel.EventSink bytesSink;
+  private EventChannel.EventSink statsSink;
   private EventChannel.EventSink stateSink;
   private Context applicationContext;
   private Activity activity;
@@ -87,15 +93,59 @@ public class AccessoryKitPlugin implements FlutterPlugin, MethodCallHandler, Act
   // USB fields
   private UsbManager usbManager;
   private UsbAccessory accessory;
-  private ParcelFileDescriptor fileDescriptor;
-  private FileInputStream inputStream;
-  private FileOutputStream outputStream;
+  private Transport transport;
   private boolean permissionRequested = false;
   
   // Threading
-  private final ExecutorService executorService = Executors.newFixedThreadPool(2);
-  private final AtomicBoolean running = new AtomicBoolean(false);
+  // Each connection runs one reader and one writer thread, named so they can be
+  // told apart in system traces
+  private static final String READER_THREAD_NAME = "AccessoryKit-reader";
+  private static final String WRITER_THREAD_NAME = "AccessoryKit-writer";
+  private final AtomicInteger threadCount = new AtomicInteger();
+  private final ExecutorService executorService = Executors.newCachedThreadPool(
+      task -> new Thread(task, "AccessoryKit-io-" + threadCount.incrementAndGet()));
+  private FrameReader frameReader;
+  private FrameWriter frameWriter;
   private final Handler mainHandler = new Handler(Looper.getMainLooper());
+  private final DeliveryBatcher.Scheduler mainScheduler = new DeliveryBatcher.Scheduler() {
+    @Override
+    public void post(Runnable task) {
+      mainHandler.post(task);
+    }
+
+    @Override
+    public void postDelayed(Runnable task, long delayMs) {
+      mainHandler.postDelayed(task, delayMs);
+    }
+  };
+  
+  // Metrics
+  private final LinkStats stats = new LinkStats();
+  private long statsIntervalMs = 1000;
+  private final Runnable statsTicker = new Runnable() {
+    @Override
+    public void run() {
+      EventChannel.EventSink sink = statsSink;
+      if (sink != null) {
+        sink.success(collectStats());
+        mainHandler.postDelayed(this, statsIntervalMs);
+      }
+    }
+  };
+  
+  // Delivery to Flutter, one list per batch
+  private final DeliveryBatcher messageBatcher = new DeliveryBatcher(mainScheduler, stats, batch -> {
+    EventChannel.EventSink sink = messageSink;
+    if (sink != null) {
+      sink.success(batch);
+    }
+  });
+  private final DeliveryBatcher bytesBatcher = new DeliveryBatcher(mainScheduler, stats, batch -> {
+    EventChannel.EventSink sink = bytesSink;
+    if (sink != null) {
+      sink.success(batch);
+    }
+  });
   
   // Configuration
   private String manufacturer = "StiffSockets";
@@ -104,17 +154,17 @@ public class AccessoryKitPlugin implements FlutterPlugin, MethodCallHandler, Act
   private String version = "1.0";
   private String uri = "https://github.com/StiffSockets";
   private String serial = "0000000012345678";
+  private FrameReader.Mode readerMode = FrameReader.Mode.BLOCKING;
+  private long pollIntervalMs = 10;
+  private int readBufferSize = ReadBufferSizer.DEFAULT_SIZE;
+  private int minReadBufferSize = ReadBufferSizer.DEFAULT_SIZE;
+  private int maxReadBufferSize = ReadBufferSizer.DEFAULT_MAX_SIZE;
+  private String ioEngineType = IO_ENGINE_STREAM;
   
   // Message parsing state
-  private enum ReadState {
-    WAIT_SOH, READ_LENGTH, READ_DATA, WAIT_EOT
-  }
-  
-  private ReadState readState = ReadState.WAIT_SOH;
-  private final ByteBuffer lengthBuffer = ByteBuffer.allocate(2).order(ByteOrder.BIG_ENDIAN);
-  private byte[] dataBuffer = new byte[MAX_BUFFER_SIZE];
-  private int expectedLength = 0;
-  private int dataRead = 0;
+  private final PayloadPool payloadPool = new PayloadPool();
+  private final DemandGate demand = new DemandGate();
+  private final InboundPipeline inbound = new InboundPipeline(stats, messageBatcher, bytesBatcher, demand);
 
   // BroadcastReceiver for USB events
   private final BroadcastReceiver usbReceiver = new BroadcastReceiver() {
@@ -129,7 +179,7 @@ public class AccessoryKitPlugin implements FlutterPlugin, MethodCallHandler, Act
               openAccessory(accessory);
             }
           } else {
-            Log.d(TAG, "Permission denied for accessory " + accessory);
+            AccessoryLog.d(TAG, "Permission denied for accessory " + accessory);
             updateState(STATE_ERROR);
           }
         }
@@ -147,6 +197,30 @@ public class AccessoryKitPlugin implements FlutterPlugin, MethodCallHandler, Act
   public void onAttachedToEngine(@NonNull FlutterPluginBinding flutterPluginBinding) {
     applicationContext = flutterPluginBinding.getApplicationContext();
     
+    // Route plugin logging to logcat
+    AccessoryLog.setSink((priority, tag, message, error) ->
+        Log.println(priority, tag, error == null ? message : message + '\n' + Log.getStackTraceString(error)));
+    
+    // Route trace sections to android.os.Trace; counters need API 29
+    AccessoryTrace.setBackend(new AccessoryTrace.Backend() {
+      @Override
+      public void beginSection(String name) {
+        Trace.beginSection(name);
+      }
+
+      @Override
+      public void endSection() {
+        Trace.endSection();
+      }
+
+      @Override
+      public void setCounter(String name, long value) {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
+          Trace.setCounter(name, value);
+        }
+      }
+    });
+    
     channel = new MethodChannel(flutterPluginBinding.getBinaryMessenger(), CHANNEL_NAME);
     channel.setMethodCallHandler(this);
     
@@ -155,11 +229,45 @@ public class AccessoryKitPlugin implements FlutterPlugin, MethodCallHandler, Act
       @Override
       public void onListen(Object arguments, EventChannel.EventSink events) {
         messageSink = events;
+        inbound.setMessagesListening(true);
       }
 
       @Override
       public void onCancel(Object arguments) {
         messageSink = null;
+        inbound.setMessagesListening(false);
+      }
+    });
+    
+    bytesChannel = new EventChannel(flutterPluginBinding.getBinaryMessenger(), BYTES_CHANNEL_NAME);
+    bytesChannel.setStreamHandler(new EventChannel.StreamHandler() {
+      @Override
+      public void onListen(Object arguments, EventChannel.EventSink events) {
+        bytesSink = events;
+        inbound.setBytesListening(true);
+      }
+
+      @Override
+      public void onCancel(Object arguments) {
+        bytesSink = null;
+        inbound.setBytesListening(false);
+      }
+    });
+    
+    statsChannel = new EventChannel(flutterPluginBinding.getBinaryMessenger(), STATS_CHANNEL_NAME);
+    statsChannel.setStreamHandler(new EventChannel.StreamHandler() {
+      @Override
+      public void onListen(Object arguments, EventChannel.EventSink events) {
+        statsIntervalMs = arguments instanceof Number ? Math.max(10, ((Number) arguments).longValue()) : 1000;
+        statsSink = events;
+        mainHandler.removeCallbacks(statsTicker);
+        mainHandler.post(statsTicker);
+      }
+
+      @Override
+      public void onCancel(Object arguments) {
+        statsSink = null;
+        mainHandler.removeCallbacks(statsTicker);
       }
     });
     
@@ -192,7 +300,7 @@ public class AccessoryKitPlugin implements FlutterPlugin, MethodCallHandler, Act
         handleSetDeviceInfo(call, result);
         break;
       case "startScan":
-        handleStartScan(result);
+        handleStartScan(call, result);
         break;
       case "stopScan":
         handleStopScan(result);
@@ -203,9 +311,58 @@ public class AccessoryKitPlugin implements FlutterPlugin, MethodCallHandler, Act
       case "disconnect":
         handleDisconnect(result);
         break;
+      case "setReaderOptions":
+        handleSetReaderOptions(call, result);
+        break;
+      case "setDeliveryOptions":
+        handleSetDeliveryOptions(call, result);
+        break;
+      case "setReplayOptions":
+        handleSetReplayOptions(call, result);
+        break;
+      case "setConflation":
+        handleSetConflation(call, result);
+        break;
+      case "setTopicKey":
+        handleSetTopicKey(call, result);
+        break;
+      case "subscribe":
+        handleSubscribe(call, result, true);
+        break;
+      case "unsubscribe":
+        handleSubscribe(call, result, false);
+        break;
+      case "setDemandMode":
+        handleSetDemandMode(call, result);
+        break;
+      case "requestDemand":
+        handleRequestDemand(call, result);
+        break;
+      case "setLogOptions":
+        handleSetLogOptions(call, result);
+        break;
+      case "setTracingEnabled":
+        handleSetTracingEnabled(call, result);
+        break;
       case "sendMessage":
         handleSendMessage(call, result);
         break;
+      case "sendBytes":
+        handleSendBytes(call, result);
+        break;
+      case "getSendQueueDepth":
+        handleGetSendQueueDepth(result);
+        break;
+      case "getStats":
+        result.success(collectStats());
+        break;
+      case "getLatencyStats":
+        result.success(stats.latencySnapshot());
+        break;
+      case "resetStats":
+        stats.reset();
+        result.success(null);
+        break;
       case "dispose":
         handleDispose(result);
         break;
@@ -242,7 +399,221 @@ public class AccessoryKitPlugin implements FlutterPlugin, MethodCallHandler, Act
     result.success(null);
   }
 
-  private void handleStartScan(Result result) {
+  private void handleSetReaderOptions(MethodCall call, Result result) {
+    String mode = call.argument("mode");
+    Number interval = call.argument("pollIntervalMs");
+    Number bufferSize = call.argument("readBufferSize");
+    Number minBufferSize = call.argument("minReadBufferSize");
+    Number maxBufferSize = call.argument("maxReadBufferSize");
+
+    int min = minBufferSize != null ? minBufferSize.intValue() : minReadBufferSize;
+    int max = maxBufferSize != null ? maxBufferSize.intValue() : maxReadBufferSize;
+    if (min <= 0 || max < min) {
+      result.error("INVALID_ARGUMENT", "Invalid read buffer bounds: " + min + ".." + max, null);
+      return;
+    }
+
+    if ("polling".equals(mode)) {
+      readerMode = FrameReader.Mode.POLLING;
+    } else if (mode == null || "blocking".equals(mode)) {
+      readerMode = FrameReader.Mode.BLOCKING;
+    } else {
+      result.error("INVALID_ARGUMENT", "Unknown reader mode: " + mode, null);
+      return;
+    }
+
+    if (interval != null) {
+      pollIntervalMs = Math.max(1, interval.longValue());
+    }
+    if (bufferSize != null) {
+      readBufferSize = bufferSize.intValue();
+    }
+    minReadBufferSize = min;
+    maxReadBufferSize = max;
+
+    result.success(null);
+  }
+
+  private void handleSetDeliveryOptions(MethodCall call, Result result) {
+    Number maxCount = call.argument("maxBatchCount");
+    Number maxBytes = call.argument("maxBatchBytes");
+    Number maxDelay = call.argument("maxDelayMs");
+    Number maxQueuedCount = call.argument("maxQueuedCount");
+    Number maxQueuedBytes = call.argument("maxQueuedBytes");
+    String overflow = call.argument("overflowPolicy");
+
+    DeliveryBatcher.OverflowPolicy policy;
+    if (overflow == null) {
+      policy = DeliveryBatcher.DEFAULT_OVERFLOW_POLICY;
+    } else if ("dropOldest".equals(overflow)) {
+      policy = DeliveryBatcher.OverflowPolicy.DROP_OLDEST;
+    } else if ("dropNewest".equals(overflow)) {
+      policy = DeliveryBatcher.OverflowPolicy.DROP_NEWEST;
+    } else if ("block".equals(overflow)) {
+      policy = DeliveryBatcher.OverflowPolicy.BLOCK;
+    } else {
+      result.error("INVALID_ARGUMENT", "Unknown overflow policy: " + overflow, null);
+      return;
+    }
+
+    int count = maxCount != null ? maxCount.intValue() : DeliveryBatcher.DEFAULT_MAX_COUNT;
+    int bytes = maxBytes != null ? maxBytes.intValue() : DeliveryBatcher.DEFAULT_MAX_BYTES;
+    long delay = maxDelay != null ? maxDelay.longValue() : DeliveryBatcher.DEFAULT_MAX_DELAY_MS;
+    int queuedCount = maxQueuedCount != null ? maxQueuedCount.intValue() : DeliveryBatcher.DEFAULT_MAX_QUEUED_COUNT;
+    int queuedBytes = maxQueuedBytes != null ? maxQueuedBytes.intValue() : DeliveryBatcher.DEFAULT_MAX_QUEUED_BYTES;
+    messageBatcher.configure(count, bytes, delay);
+    bytesBatcher.configure(count, bytes, delay);
+    messageBatcher.configureQueue(queuedCount, queuedBytes, policy);
+    bytesBatcher.configureQueue(queuedCount, queuedBytes, policy);
+
+    result.success(null);
+  }
+
+  private void handleSetReplayOptions(MethodCall call, Result result) {
+    Number maxCount = call.argument("maxCount");
+    Number maxBytes = call.argument("maxBytes");
+
+    int count = maxCount != null ? maxCount.intValue() : ReplayBuffer.DEFAULT_MAX_COUNT;
+    int bytes = maxBytes != null ? maxBytes.intValue() : ReplayBuffer.DEFAULT_MAX_BYTES;
+    if (count < 0 || bytes < 0) {
+      result.error("INVALID_ARGUMENT", "Invalid replay limits: " + count + " frames, " + bytes + " bytes", null);
+      return;
+    }
+    inbound.setReplayLimits(count, bytes);
+
+    result.success(null);
+  }
+
+  private void handleSetConflation(MethodCall call, Result result) {
+    PayloadKey key;
+    try {
+      key = parsePayloadKey(call);
+    } catch (IllegalArgumentException e) {
+      result.error("INVALID_ARGUMENT", e.getMessage(), null);
+      return;
+    }
+    inbound.setConflationKey(key);
+
+    result.success(null);
+  }
+
+  private void handleSetTopicKey(MethodCall call, Result result) {
+    PayloadKey key;
+    try {
+      key = parsePayloadKey(call);
+    } catch (IllegalArgumentException e) {
+      result.error("INVALID_ARGUMENT", e.getMessage(), null);
+      return;
+    }
+    inbound.setTopicKey(key);
+
+    result.success(null);
+  }
+
+  private void handleSubscribe(MethodCall call, Result result, boolean subscribe) {
+    Object topic = call.argument("topic");
+
+    byte[] bytes;
+    if (topic instanceof String) {
+      bytes = ((String) topic).getBytes(StandardCharsets.UTF_8);
+    } else if (topic instanceof byte[]) {
+      bytes = (byte[]) topic;
+    } else {
+      result.error("INVALID_ARGUMENT", "Invalid topic: " + topic, null);
+      return;
+    }
+
+    result.success(subscribe ? inbound.subscribe(bytes) : inbound.unsubscribe(bytes));
+  }
+
+  /** Reads a {@link PayloadKey} from "mode" plus its parameters; "none" or no mode is null. */
+  private static PayloadKey parsePayloadKey(MethodCall call) {
+    String mode = call.argument("mode");
+    Number offset = call.argument("offset");
+    Number length = call.argument("length");
+    Number delimiter = call.argument("delimiter");
+    Number maxLength = call.argument("maxLength");
+
+    if (mode == null || "none".equals(mode)) {
+      return null;
+    } else if ("byteRange".equals(mode)) {
+      return PayloadKey.byteRange(offset != null ? offset.intValue() : 0, length != null ? length.intValue() : 0);
+    } else if ("prefix".equals(mode)) {
+      return PayloadKey.prefix(delimiter != null ? delimiter.byteValue() : (byte) ':',
+          maxLength != null ? maxLength.intValue() : 64);
+    }
+    throw new IllegalArgumentException("Unknown key mode: " + mode);
+  }
+
+  private void handleSetDemandMode(MethodCall call, Result result) {
+    Boolean enabled = call.argument("enabled");
+    demand.setEnabled(enabled != null && enabled);
+    result.success(null);
+  }
+
+  private void handleRequestDemand(MethodCall call, Result result) {
+    Number count = call.argument("count");
+    if (count == null || count.longValue() < 0) {
+      result.error("INVALID_ARGUMENT", "Invalid demand: " + count, null);
+      return;
+    }
+    demand.grant(count.longValue());
+    result.success(null);
+  }
+
+  private void handleSetLogOptions(MethodCall call, Result result) {
+    String level = call.argument("level");
+    Number frameSampleRate = call.argument("frameSampleRate");
+    Boolean logPayloads = call.argument("logPayloads");
+
+    int priority;
+    switch (level != null ? level : "info") {
+      case "verbose":
+        priority = AccessoryLog.VERBOSE;
+        break;
+      case "debug":
+        priority = AccessoryLog.DEBUG;
+        break;
+      case "info":
+        priority = AccessoryLog.INFO;
+        break;
+      case "warn":
+        priority = AccessoryLog.WARN;
+        break;
+      case "error":
+        priority = AccessoryLog.ERROR;
+        break;
+      case "none":
+        priority = AccessoryLog.NONE;
+        break;
+      default:
+        result.error("INVALID_ARGUMENT", "Unknown log level: " + level, null);
+        return;
+    }
+
+    AccessoryLog.setLevel(priority);
+    AccessoryLog.setFrameSampling(frameSampleRate != null ? frameSampleRate.intValue() : 0,
+        logPayloads != null && logPayloads);
+    result.success(null);
+  }
+
+  private void handleSetTracingEnabled(MethodCall call, Result result) {
+    Boolean enabled = call.argument("enabled");
+    AccessoryTrace.setEnabled(enabled != null && enabled);
+    result.success(null);
+  }
+
+  private void handleStartScan(MethodCall call, Result result) {
+    String engine = call.argument("ioEngine");
+    if (engine == null) {
+      engine = IO_ENGINE_STREAM;
+    }
+    if (!IO_ENGINE_STREAM.equals(engine) && !IO_ENGINE_CHANNEL.equals(engine)) {
+      result.error("INVALID_ARGUMENT", "Unknown I/O engine: " + engine, null);
+      return;
+    }
+    ioEngineType = engine;
+
     updateState(STATE_SEARCHING);
     
     // Look for USB accessories
@@ -271,7 +642,7 @@ public class AccessoryKitPlugin implements FlutterPlugin, MethodCallHandler, Act
 
   private void handleConnect(Result result) {
     // Already checked in startScan, just return connection status
-    boolean isConnected = (inputStream != null && outputStream != null);
+    boolean isConnected = (transport != null);
     result.success(isConnected);
   }
 
@@ -288,10 +659,71 @@ public class AccessoryKitPlugin implements FlutterPlugin, MethodCallHandler, Act
       return;
     }
     
-    executorService.execute(() -> {
-      boolean success = sendData(message);
-      mainHandler.post(() -> result.success(success));
-    });
+    enqueueSend(message, result);
+  }
+
+  private void handleSendBytes(MethodCall call, Result result) {
+    final byte[] data = call.argument("data");
+    
+    if (data == null || data.length == 0) {
+      result.success(false);
+      return;
+    }
+    
+    if (data.length > MAX_PAYLOAD_SIZE) {
+      AccessoryLog.e(TAG, "Message too long: " + data.length + " bytes");
+      stats.increment(LinkStats.SEND_FAILURES);
+      result.success(false);
+      return;
+    }
+    
+    enqueueSend(data, result);
+  }
+
+  private void enqueueSend(Object payload, Result result) {
+    FrameWriter writer = frameWriter;
+    if (writer == null) {
+      AccessoryLog.e(TAG, "Output stream is null");
+      stats.increment(LinkStats.SEND_FAILURES);
+      result.success(false);
+      return;
+    }
+    
+    // Never blocks; a full queue or a stopped writer fails the send, counted by the writer
+    if (!writer.enqueue(payload, result)) {
+      AccessoryLog.e(TAG, writer.isRunning() ? "Send queue full" : "Writer stopped, connection closing");
+      result.success(false);
+      return;
+    }
+    
+    if (AccessoryLog.sampleFrame()) {
+      if (AccessoryLog.logPayloads() && payload instanceof String) {
+        AccessoryLog.d(TAG, "Sending message: " + payload);
+      } else if (payload instanceof String) {
+        AccessoryLog.d(TAG, "Sending " + ((String) payload).length() + " chars");
+      } else {
+        AccessoryLog.d(TAG, "Sending " + ((byte[]) payload).length + " bytes");
+      }
+    }
+  }
+
+  private void handleGetSendQueueDepth(Result result) {
+    FrameWriter writer = frameWriter;
+    result.success(writer != null ? writer.getQueueDepth() : 0);
+  }
+
+  private Map<String, Object> collectStats() {
+    Map<String, Object> snapshot = stats.snapshot();
+    FrameReader reader = frameReader;
+    FrameWriter writer = frameWriter;
+    snapshot.put("connected", transport != null);
+    snapshot.put("readBufferSize", reader != null ? reader.getBufferSize() : 0);
+    snapshot.put("sendQueueDepth", writer != null ? writer.getQueueDepth() : 0);
+    snapshot.put("deliveryQueueDepth", messageBatcher.getPendingCount() + bytesBatcher.getPendingCount());
+    snapshot.put("replayDepth", inbound.getReplayDepth());
+    snapshot.put("demandMode", demand.isEnabled());
+    snapshot.put("demand", demand.getDemand());
+    return snapshot;
   }
 
   private void handleDispose(Result result) {
@@ -301,7 +733,7 @@ public class AccessoryKitPlugin implements FlutterPlugin, MethodCallHandler, Act
     try {
       applicationContext.unregisterReceiver(usbReceiver);
     } catch (Exception e) {
-      Log.e(TAG, "Error unregistering receiver", e);
+      AccessoryLog.e(TAG, "Error unregistering receiver", e);
     }
     
     executorService.shutdown();
@@ -327,188 +759,121 @@ public class AccessoryKitPlugin implements FlutterPlugin, MethodCallHandler, Act
     }
   }
 
+  /** Runs {@code task} under {@code name}, restoring the pool thread's name afterwards. */
+  private static Runnable named(String name, Runnable task) {
+    return () -> {
+      Thread thread = Thread.currentThread();
+      String previous = thread.getName();
+      thread.setName(name);
+      try {
+        task.run();
+      } finally {
+        thread.setName(previous);
+      }
+    };
+  }
+
   private void openAccessory(UsbAccessory accessory) {
-    fileDescriptor = usbManager.openAccessory(accessory);
+    // Only one connection at a time: its reader must stop before another one starts
+    if (transport != null) {
+      closeAccessory();
+    }
+    ParcelFileDescriptor fileDescriptor = usbManager.openAccessory(accessory);
     if (fileDescriptor != null) {
       this.accessory = accessory;
-      FileDescriptor fd = fileDescriptor.getFileDescriptor();
-      inputStream = new FileInputStream(fd);
-      outputStream = new FileOutputStream(fd);
-      
-      // Reset the read state
-      resetReadState();
-      
-      // Start the reader thread
-      running.set(true);
-      executorService.execute(this::receiveData);
-      
-      updateState(STATE_CONNECTED);
+      openTransport(new AccessoryTransport(fileDescriptor, IO_ENGINE_CHANNEL.equals(ioEngineType)));
     } else {
-      Log.d(TAG, "Failed to open accessory");
+      AccessoryLog.d(TAG, "Failed to open accessory");
       updateState(STATE_ERROR);
     }
   }
 
-  private void closeAccessory() {
-    running.set(false);
+  /** Starts the reader and writer on {@code transport}, which this plugin then owns. */
+  private void openTransport(Transport transport) {
+    this.transport = transport;
     
-    try {
-      if (fileDescriptor != null) {
-        fileDescriptor.close();
-      }
-    } catch (IOException e) {
-      Log.e(TAG, "Error closing accessory", e);
-    } finally {
-      fileDescriptor = null;
-      accessory = null;
-      inputStream = null;
-      outputStream = null;
-      updateState(STATE_DISCONNECTED);
-    }
+    // Reset the read state
+    resetReadState();
+    
+    // Start the reader thread
+    frameReader = createFrameReader();
+    executorService.execute(named(READER_THREAD_NAME, frameReader));
+    
+    // Start the writer thread
+    frameWriter = createFrameWriter();
+    executorService.execute(named(WRITER_THREAD_NAME, frameWriter));
+    
+    updateState(STATE_CONNECTED);
   }
 
-  private boolean sendData(String message) {
-    if (outputStream == null) {
-      Log.e(TAG, "Output stream is null");
-      return false;
+  private void closeAccessory() {
+    if (frameReader != null) {
+      frameReader.stop();
+      frameReader = null;
+    }
+    // A reader held by a full delivery queue must not outlive the connection
+    messageBatcher.unblock();
+    bytesBatcher.unblock();
+    if (frameWriter != null) {
+      frameWriter.stop();
+      frameWriter = null;
     }
     
     try {
-      // Format: SOH + Length (2 bytes) + Data + EOT
-      byte[] data = message.getBytes("UTF-8");
-      
-      if (data.length > 65535) {
-        Log.e(TAG, "Message too long: " + data.length + " bytes");
-        return false;
-      }
-      
-      // Create a buffer with enough space for the message and framing
-      ByteBuffer buffer = ByteBuffer.allocate(data.length + 4);
-      buffer.order(ByteOrder.BIG_ENDIAN);
-      
-      // Start of Header
-      buffer.put(SOH);
-      
-      // Length (2 bytes, big-endian)
-      buffer.putShort((short) data.length);
-      
-      // Data
-      buffer.put(data);
-      
-      // End of Transmission
-      buffer.put(EOT);
-      
-      // Send the message
-      synchronized (outputStream) {
-        outputStream.write(buffer.array());
-        outputStream.flush();
+      if (transport != null) {
+        transport.close();
       }
-      
-      Log.d(TAG, "Sent message: " + message + " (" + data.length + " bytes)");
-      return true;
     } catch (IOException e) {
-      Log.e(TAG, "Error sending data", e);
-      return false;
+      AccessoryLog.e(TAG, "Error closing accessory", e);
+    } finally {
+      transport = null;
+      accessory = null;
+      updateState(STATE_DISCONNECTED);
     }
   }
 
   private void resetReadState() {
-    readState = ReadState.WAIT_SOH;
-    lengthBuffer.clear();
-    expectedLength = 0;
-    dataRead = 0;
+    inbound.clearReplay();
   }
 
-  private void receiveData() {
-    byte[] buffer = new byte[64]; // Read in chunks
-    
-    while (running.get()) {
-      try {
-        int bytesRead = inputStream.read(buffer);
-        
-        if (bytesRead <= 0) {
-          // No data available or error occurred
-          Thread.sleep(10); // Short sleep to avoid busy waiting
-          continue;
-        }
-        
-        // Process each byte according to the current state
-        for (int i = 0; i < bytesRead; i++) {
-          byte b = buffer[i];
-          
-          switch (readState) {
-            case WAIT_SOH:
-              if (b == SOH) {
-                readState = ReadState.READ_LENGTH;
-                lengthBuffer.clear();
-              }
-              break;
-              
-            case READ_LENGTH:
-              lengthBuffer.put(b);
-              if (lengthBuffer.position() == 2) {
-                lengthBuffer.flip();
-                expectedLength = lengthBuffer.getShort() & 0xFFFF;
-                
-                if (expectedLength > 0 && expectedLength <= MAX_BUFFER_SIZE) {
-                  readState = ReadState.READ_DATA;
-                  dataRead = 0;
-                } else {
-                  // Invalid length
-                  Log.e(TAG, "Invalid message length: " + expectedLength);
-                  resetReadState();
-                }
-              }
-              break;
-              
-            case READ_DATA:
-              if (dataRead < expectedLength) {
-                dataBuffer[dataRead++] = b;
-                if (dataRead == expectedLength) {
-                  readState = ReadState.WAIT_EOT;
-                }
-              }
-              break;
-              
-            case WAIT_EOT:
-              if (b == EOT) {
-                // Complete message received
-                final String message = new String(dataBuffer, 0, expectedLength, "UTF-8");
-                
-                // Send to Flutter
-                if (messageSink != null) {
-                  mainHandler.post(() -> messageSink.success(message));
-                }
-                
-                Log.d(TAG, "Received message: " + message);
-              } else {
-                Log.e(TAG, "Invalid EOT byte: " + b);
+  private FrameReader createFrameReader() {
+    ReadBufferSizer sizer = new ReadBufferSizer(readBufferSize, minReadBufferSize, maxReadBufferSize);
+    // A fresh decoder per connection, so no partial frame carries over from the last one
+    FrameDecoder decoder = new FrameDecoder(MAX_PAYLOAD_SIZE, payloadPool, inbound);
+    return new FrameReader(transport, decoder, readerMode, pollIntervalMs, sizer, stats, demand,
+        new FrameReader.Callback() {
+          @Override
+          public void onEndOfStream(FrameReader reader) {
+            AccessoryLog.d(TAG, "Accessory closed the connection");
+            mainHandler.post(() -> {
+              // Ignore if a newer connection has replaced this one
+              if (frameReader == reader) {
+                closeAccessory();
               }
-              
-              // Reset for next message
-              resetReadState();
-              break;
+            });
           }
-        }
-      } catch (IOException e) {
-        if (running.get()) {
-          Log.e(TAG, "Error reading data", e);
-          updateState(STATE_ERROR);
-          
-          // Allow time for error recovery
-          try {
-            Thread.sleep(1000);
-          } catch (InterruptedException ex) {
-            Thread.currentThread().interrupt();
+
+          @Override
+          public void onReadError(IOException e) {
+            AccessoryLog.e(TAG, "Error reading data", e);
+            updateState(STATE_ERROR);
           }
-        }
-      } catch (InterruptedException e) {
-        Thread.currentThread().interrupt();
-        break;
+        });
+  }
+
+  private FrameWriter createFrameWriter() {
+    return new FrameWriter(transport, FrameWriter.DEFAULT_QUEUE_CAPACITY, stats, new FrameWriter.Callback() {
+      @Override
+      public void onComplete(Object token, boolean success) {
+        final Result result = (Result) token;
+        mainHandler.post(() -> result.success(success));
       }
-    }
-    
-    Log.d(TAG, "Receive thread stopped");
+
+      @Override
+      public void onWriteError(IOException e) {
+        AccessoryLog.e(TAG, "Error sending data", e);
+      }
+    });
   }
 
   private void updateState(String state) {
@@ -527,7 +892,7 @@ public class AccessoryKitPlugin implements FlutterPlugin, MethodCallHandler, Act
     try {
       applicationContext.unregisterReceiver(usbReceiver);
     } catch (Exception e) {
-      Log.e(TAG, "Error unregistering receiver", e);
+      AccessoryLog.e(TAG, "Error unregistering receiver", e);
     }
     
     executorService.shutdown();
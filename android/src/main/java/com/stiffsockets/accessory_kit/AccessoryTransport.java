@@ -0,0 +1,71 @@
+/**
+ * @file: AccessoryTransport.java
+ * @package: accessory_kit
+ * @created Date: Mon Dec 2025
+ * @author: Nicholas J. Caruso
+ *
+ * @last Modified: Mon Dec 29 2025
+ * @modified By: Nicholas J. Caruso
+ *
+ * @version: 1.1.31
+ *
+ */
+
+
+
+
+
+package com.stiffsockets.accessory_kit;
+
+import android.os.ParcelFileDescriptor;
+
+import java.io.FileDescriptor;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+
+/**
+ * AccessoryTransport
+ *
+ * {@link Transport} over the file descriptor returned by UsbManager.openAccessory(). Bytes move
+ * through the stream or channel {@link IoEngine}; closing the transport closes the descriptor,
+ * which also unblocks a reader parked in read().
+ */
+final class AccessoryTransport implements Transport {
+  private final ParcelFileDescriptor fileDescriptor;
+  private final IoEngine engine;
+
+  AccessoryTransport(ParcelFileDescriptor fileDescriptor, boolean useChannel) {
+    this.fileDescriptor = fileDescriptor;
+    FileDescriptor fd = fileDescriptor.getFileDescriptor();
+    FileInputStream inputStream = new FileInputStream(fd);
+    FileOutputStream outputStream = new FileOutputStream(fd);
+    if (useChannel) {
+      engine = new ChannelIoEngine(inputStream.getChannel(), outputStream.getChannel());
+    } else {
+      engine = new StreamIoEngine(inputStream, outputStream);
+    }
+  }
+
+  @Override
+  public int read(ByteBuffer dst) throws IOException {
+    return engine.read(dst);
+  }
+
+  @Override
+  public void write(ByteBuffer src) throws IOException {
+    engine.write(src);
+  }
+
+  @Override
+  public ByteBuffer allocate(int capacity) {
+    return engine.allocate(capacity);
+  }
+
+  @Override
+  public void close() throws IOException {
+    fileDescriptor.close();
+  }
+}
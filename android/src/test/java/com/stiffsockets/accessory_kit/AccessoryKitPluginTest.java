@@ -5,25 +5,59 @@ import static org.mockito.Mockito.verify;
 
 import io.flutter.plugin.common.MethodCall;
 import io.flutter.plugin.common.MethodChannel;
+import java.util.Collections;
 import org.junit.Test;
 
 /**
- * This demonstrates a simple unit test of the Java portion of this plugin's implementation.
+ * Unit tests of the method-channel surface that runs without an attached engine or accessory.
  *
- * Once you have built the plugin's example app, you can run these tests from the command
- * line by running `./gradlew testDebugUnitTest` in the `example/android/` directory, or
- * you can run them directly from IDEs that support JUnit such as Android Studio.
+ * The framing codec, queues and pipelines are tested on a desktop JVM in the core module
+ * (`android/core`). Run these with `./gradlew testDebugUnitTest` in the `example/android/`
+ * directory, or directly from IDEs that support JUnit such as Android Studio.
  */
 
 public class AccessoryKitPluginTest {
   @Test
-  public void onMethodCall_getPlatformVersion_returnsExpectedValue() {
+  public void onMethodCall_unknownMethod_isNotImplemented() {
     AccessoryKitPlugin plugin = new AccessoryKitPlugin();
 
     final MethodCall call = new MethodCall("getPlatformVersion", null);
     MethodChannel.Result mockResult = mock(MethodChannel.Result.class);
     plugin.onMethodCall(call, mockResult);
 
-    verify(mockResult).success("Android " + android.os.Build.VERSION.RELEASE);
+    verify(mockResult).notImplemented();
+  }
+
+  @Test
+  public void onMethodCall_sendMessageWhileDisconnected_fails() {
+    AccessoryKitPlugin plugin = new AccessoryKitPlugin();
+
+    final MethodCall call = new MethodCall("sendMessage", Collections.singletonMap("message", "hello"));
+    MethodChannel.Result mockResult = mock(MethodChannel.Result.class);
+    plugin.onMethodCall(call, mockResult);
+
+    verify(mockResult).success(false);
+  }
+
+  @Test
+  public void onMethodCall_getSendQueueDepthWhileDisconnected_returnsZero() {
+    AccessoryKitPlugin plugin = new AccessoryKitPlugin();
+
+    final MethodCall call = new MethodCall("getSendQueueDepth", null);
+    MethodChannel.Result mockResult = mock(MethodChannel.Result.class);
+    plugin.onMethodCall(call, mockResult);
+
+    verify(mockResult).success(0);
+  }
+
+  @Test
+  public void onMethodCall_setLogOptionsUnknownLevel_returnsError() {
+    AccessoryKitPlugin plugin = new AccessoryKitPlugin();
+
+    final MethodCall call = new MethodCall("setLogOptions", Collections.singletonMap("level", "loud"));
+    MethodChannel.Result mockResult = mock(MethodChannel.Result.class);
+    plugin.onMethodCall(call, mockResult);
+
+    verify(mockResult).error("INVALID_ARGUMENT", "Unknown log level: loud", null);
   }
 }
@@ -12,6 +12,7 @@
 ///
 
 import 'dart:async';
+import 'dart:typed_data';
 
 import 'package:flutter/services.dart';
 
@@ -33,6 +34,93 @@ enum UsbConnectionState {
   searching,
 }
 
+/// How the native reader thread waits for inbound data
+enum UsbReaderMode {
+  /// Stay blocked in the read until the host sends data; end of stream disconnects
+  blocking,
+
+  /// Sleep between empty reads (legacy behaviour)
+  polling,
+}
+
+/// I/O path used for the accessory file descriptor
+enum UsbIoEngine {
+  /// FileInputStream/FileOutputStream with heap buffers
+  stream,
+
+  /// FileChannel with direct buffers, skipping the heap copy between the kernel and the
+  /// frame decoder. Inbound payloads are still copied once before delivery.
+  channel,
+}
+
+/// What the native side does with inbound messages when the delivery queue is full
+enum UsbOverflowPolicy {
+  /// Discard the oldest undelivered messages
+  dropOldest,
+
+  /// Discard the newly received message
+  dropNewest,
+
+  /// Stop reading until Dart catches up, stalling the host's writes (default)
+  block,
+}
+
+/// Minimum priority of native plugin logs
+enum UsbLogLevel {
+  /// Everything, including verbose traces
+  verbose,
+
+  /// Debug messages and above
+  debug,
+
+  /// Connection lifecycle and above (default)
+  info,
+
+  /// Warnings, such as corrupted frames, and errors
+  warn,
+
+  /// Errors only
+  error,
+
+  /// No logging
+  none,
+}
+
+/// Where a key sits in inbound payloads, for conflation or topic subscriptions
+///
+/// The key is read from the payload bytes on the native side, before any text decode.
+/// Payloads without a key (too short, or no delimiter) are always delivered.
+class UsbPayloadKey {
+  final String _mode;
+  final int _offset;
+  final int _length;
+  final int _delimiter;
+
+  /// Keys payloads by [length] bytes starting at [offset]
+  const UsbPayloadKey.byteRange(int offset, int length)
+      : _mode = 'byteRange',
+        _offset = offset,
+        _length = length,
+        _delimiter = 0;
+
+  /// Keys payloads by the bytes before the first [delimiter], at most [maxLength] of them
+  ///
+  /// For text payloads such as `temp:21.5`, use `UsbPayloadKey.prefix(0x3A)`.
+  const UsbPayloadKey.prefix(int delimiter, {int maxLength = 64})
+      : _mode = 'prefix',
+        _offset = 0,
+        _length = maxLength,
+        _delimiter = delimiter;
+
+  Map<String, dynamic> _toMap() => {
+        'mode': _mode,
+        'offset': _offset,
+        'length': _length,
+        'delimiter': _delimiter,
+        'maxLength': _length,
+      };
+}
+
 /// USB device information
 class UsbDevice {
   /// Manufacturer name
@@ -64,6 +152,163 @@ class UsbDevice {
   });
 }
 
+/// Link counters reported by the native side
+///
+/// Counters are cumulative for the lifetime of the plugin; depths and sizes are
+/// sampled when the snapshot is taken.
+class UsbLinkStats {
+  /// Read calls made by the reader thread
+  final int readCalls;
+
+  /// Bytes read from the accessory, including framing and noise
+  final int wireBytesRead;
+
+  /// Complete frames decoded
+  final int framesReceived;
+
+  /// Payload bytes in decoded frames
+  final int bytesReceived;
+
+  /// Frames rejected for a zero or oversized length
+  final int invalidLength;
+
+  /// Frames rejected because the byte after the payload was not EOT
+  final int invalidEot;
+
+  /// Total decode errors
+  final int decodeErrors;
+
+  /// Times the decoder dropped a partial frame to find the next SOH
+  final int resyncs;
+
+  /// Decoded frames discarded because nothing was listening
+  final int framesDropped;
+
+  /// Wire bytes discarded while looking for a frame: noise and rejected candidates
+  final int bytesSkipped;
+
+  /// Frames held while nothing was listening and delivered once a stream started
+  final int framesReplayed;
+
+  /// Messages discarded because the delivery queue was full
+  final int deliveryDropped;
+
+  /// Times the reader waited for room in a full delivery queue
+  final int readerBlocked;
+
+  /// Times the reader waited for Dart to request more messages
+  final int demandWaits;
+
+  /// Messages replaced by a newer message with the same conflation key
+  final int framesConflated;
+
+  /// Frames dropped natively because their topic is not subscribed
+  final int framesFiltered;
+
+  /// Frames written to the accessory
+  final int framesSent;
+
+  /// Payload bytes written to the accessory
+  final int bytesSent;
+
+  /// Sends that failed, including sends rejected by a full queue
+  final int sendFailures;
+
+  /// Sends rejected because the send queue was full
+  final int sendQueueFull;
+
+  /// Whether an accessory is open
+  final bool connected;
+
+  /// Current read size of the reader thread
+  final int readBufferSize;
+
+  /// Sends waiting for the writer thread
+  final int sendQueueDepth;
+
+  /// Inbound messages waiting for delivery to Dart
+  final int deliveryQueueDepth;
+
+  /// Frames held in the replay buffer until a stream starts listening
+  final int replayDepth;
+
+  /// Whether reads are paced by demand from [AccessoryKitUsb.flowControlledMessageStream]
+  final bool demandMode;
+
+  /// Messages Dart may still receive before the reader waits; negative after an overshoot
+  final int demand;
+
+  /// All values as reported by the platform side
+  final Map<String, dynamic> raw;
+
+  /// Creates stats from the map returned by the platform side
+  UsbLinkStats.fromMap(Map<dynamic, dynamic> map)
+      : raw = Map<String, dynamic>.from(map),
+        readCalls = map['readCalls'] as int? ?? 0,
+        wireBytesRead = map['wireBytesRead'] as int? ?? 0,
+        framesReceived = map['framesReceived'] as int? ?? 0,
+        bytesReceived = map['bytesReceived'] as int? ?? 0,
+        invalidLength = map['invalidLength'] as int? ?? 0,
+        invalidEot = map['invalidEot'] as int? ?? 0,
+        decodeErrors = map['decodeErrors'] as int? ?? 0,
+        resyncs = map['resyncs'] as int? ?? 0,
+        framesDropped = map['framesDropped'] as int? ?? 0,
+        bytesSkipped = map['bytesSkipped'] as int? ?? 0,
+        framesReplayed = map['framesReplayed'] as int? ?? 0,
+        deliveryDropped = map['deliveryDropped'] as int? ?? 0,
+        readerBlocked = map['readerBlocked'] as int? ?? 0,
+        demandWaits = map['demandWaits'] as int? ?? 0,
+        framesConflated = map['framesConflated'] as int? ?? 0,
+        framesFiltered = map['framesFiltered'] as int? ?? 0,
+        framesSent = map['framesSent'] as int? ?? 0,
+        bytesSent = map['bytesSent'] as int? ?? 0,
+        sendFailures = map['sendFailures'] as int? ?? 0,
+        sendQueueFull = map['sendQueueFull'] as int? ?? 0,
+        connected = map['connected'] as bool? ?? false,
+        readBufferSize = map['readBufferSize'] as int? ?? 0,
+        sendQueueDepth = map['sendQueueDepth'] as int? ?? 0,
+        deliveryQueueDepth = map['deliveryQueueDepth'] as int? ?? 0,
+        replayDepth = map['replayDepth'] as int? ?? 0,
+        demandMode = map['demandMode'] as bool? ?? false,
+        demand = map['demand'] as int? ?? 0;
+}
+
+/// Latency distribution of one pipeline stage, in microseconds
+///
+/// Percentiles are bucket upper bounds, accurate to about 6%.
+class UsbLatencyStats {
+  /// Number of samples
+  final int count;
+
+  /// Mean latency
+  final double meanUs;
+
+  /// Median latency
+  final double p50Us;
+
+  /// 90th percentile
+  final double p90Us;
+
+  /// 99th percentile
+  final double p99Us;
+
+  /// 99.9th percentile
+  final double p999Us;
+
+  /// Largest sample
+  final double maxUs;
+
+  /// Creates latency stats from the map returned by the platform side
+  UsbLatencyStats.fromMap(Map<dynamic, dynamic> map)
+      : count = map['count'] as int? ?? 0,
+        meanUs = (map['meanUs'] as num? ?? 0).toDouble(),
+        p50Us = (map['p50Us'] as num? ?? 0).toDouble(),
+        p90Us = (map['p90Us'] as num? ?? 0).toDouble(),
+        p99Us = (map['p99Us'] as num? ?? 0).toDouble(),
+        p999Us = (map['p999Us'] as num? ?? 0).toDouble(),
+        maxUs = (map['maxUs'] as num? ?? 0).toDouble();
+}
+
 /// Main API for Android Open Accessory (AOA) USB communication
 class AccessoryKitUsb {
   /// Method channel to communicate with platform code
@@ -72,11 +317,64 @@ class AccessoryKitUsb {
   /// Event channel for receiving messages from USB device
   static const EventChannel _messageChannel = EventChannel('accessory_kit/messages');
 
+  /// Event channel for receiving raw payloads from USB device
+  static const EventChannel _bytesChannel = EventChannel('accessory_kit/bytes');
+
+  /// Event channel for periodic link statistics
+  static const EventChannel _statsChannel = EventChannel('accessory_kit/stats');
+
   /// Event channel for connection state changes
   static const EventChannel _stateChannel = EventChannel('accessory_kit/state');
 
   /// Stream controller for message events
-  static final _messageStreamController = StreamController<String>.broadcast();
+  ///
+  /// The native stream is only subscribed while Dart listens, so the platform side
+  /// skips the String decode when nobody consumes text messages.
+  static final _messageStreamController = StreamController<String>.broadcast(
+    onListen: _listenMessages,
+    onCancel: _cancelMessages,
+  );
+
+  /// Stream controller for message batches
+  static final _messageBatchStreamController = StreamController<List<String>>.broadcast(
+    onListen: _listenMessages,
+    onCancel: _cancelMessages,
+  );
+
+  /// Stream controller for raw payload events
+  static final _bytesStreamController = StreamController<Uint8List>.broadcast(
+    onListen: _listenBytes,
+    onCancel: _cancelBytes,
+  );
+
+  /// Stream controller for raw payload batches
+  static final _bytesBatchStreamController = StreamController<List<Uint8List>>.broadcast(
+    onListen: _listenBytes,
+    onCancel: _cancelBytes,
+  );
+
+  /// Stream controller for link statistics snapshots
+  ///
+  /// Shared by every [statsStream] caller, since the native channel can only push at one
+  /// interval at a time.
+  static final _statsStreamController = StreamController<UsbLinkStats>.broadcast(
+    onListen: _listenStats,
+    onCancel: _cancelStats,
+  );
+
+  /// Interval of the native stats subscription, or of the next one to start
+  static Duration _statsInterval = const Duration(seconds: 1);
+
+  /// Native stats subscription, active while [statsStream] has listeners
+  static StreamSubscription<dynamic>? _statsSubscription;
+
+  /// Native message subscription, active while [messageStream] or [messageBatchStream]
+  /// has listeners
+  static StreamSubscription<dynamic>? _messageSubscription;
+
+  /// Native payload subscription, active while [bytesStream] or [bytesBatchStream]
+  /// has listeners
+  static StreamSubscription<dynamic>? _bytesSubscription;
 
   /// Stream controller for connection state events
   static final _stateStreamController = StreamController<UsbConnectionState>.broadcast();
@@ -84,9 +382,73 @@ class AccessoryKitUsb {
   /// Stream of messages received from USB device
   static Stream<String> get messageStream => _messageStreamController.stream;
 
+  /// Stream of raw payloads received from USB device, without any charset decode
+  static Stream<Uint8List> get bytesStream => _bytesStreamController.stream;
+
+  /// Messages as delivered by the platform side, one list per batch
+  static Stream<List<String>> get messageBatchStream => _messageBatchStreamController.stream;
+
+  /// Raw payloads as delivered by the platform side, one list per batch
+  static Stream<List<Uint8List>> get bytesBatchStream => _bytesBatchStreamController.stream;
+
   /// Stream of connection state changes
   static Stream<UsbConnectionState> get connectionStateStream => _stateStreamController.stream;
 
+  /// Messages with consumer-driven flow control
+  ///
+  /// While the returned stream is listened to, the native reader only reads from the
+  /// accessory as long as Dart has asked for more: [window] messages are requested up
+  /// front and topped up as they arrive. Pausing the subscription stops the top-ups, so
+  /// once the window is used up the reader stops and the host's writes stall in the
+  /// kernel; resuming requests more. Demand is checked between reads, so one read's worth
+  /// of messages may arrive past the window.
+  ///
+  /// Only messages that reach Dart use up the window. Frames the native side drops first,
+  /// through the `dropOldest`/`dropNewest` overflow policies of [setDeliveryOptions],
+  /// conflation ([setConflation]) or replay eviction, return their demand, so drops never
+  /// stall the reader. With the `block` policy nothing is dropped; a full delivery queue
+  /// stalls the reader by itself.
+  ///
+  /// Only one flow-controlled stream should be active at a time. Other message and bytes
+  /// listeners see the same, throttled traffic.
+  static Stream<String> flowControlledMessageStream({int window = 256}) {
+    assert(window > 0);
+    late final StreamController<String> controller;
+    StreamSubscription<String>? subscription;
+    var received = 0;
+
+    void topUp() {
+      if (received > 0 && !controller.isPaused) {
+        final count = received;
+        received = 0;
+        _channel.invokeMethod('requestDemand', {'count': count});
+      }
+    }
+
+    controller = StreamController<String>(
+      onListen: () async {
+        subscription = messageStream.listen(
+          (message) {
+            controller.add(message);
+            received++;
+            if (received >= (window + 1) ~/ 2) {
+              topUp();
+            }
+          },
+          onError: controller.addError,
+        );
+        await _channel.invokeMethod('setDemandMode', {'enabled': true});
+        await _channel.invokeMethod('requestDemand', {'count': window});
+      },
+      onResume: topUp,
+      onCancel: () async {
+        await subscription?.cancel();
+        await _channel.invokeMethod('setDemandMode', {'enabled': false});
+      },
+    );
+    return controller.stream;
+  }
+
   /// Current connection state
   static UsbConnectionState _connectionState = UsbConnectionState.disconnected;
 
@@ -95,17 +457,7 @@ class AccessoryKitUsb {
 
   /// Initializes the plugin and starts listening for events
   static Future<void> initialize() async {
-    // Set up message listener
-    _messageChannel.receiveBroadcastStream().listen(
-      (dynamic event) {
-        if (event is String) {
-          _messageStreamController.add(event);
-        }
-      },
-      onError: (dynamic error) {
-        print('Error receiving message: $error');
-      },
-    );
+    // Message listeners attach when messageStream or bytesStream is listened to
 
     // Set up state listener
     _stateChannel.receiveBroadcastStream().listen(
@@ -146,9 +498,147 @@ class AccessoryKitUsb {
     });
   }
 
+  /// Sets how the reader waits for data and how much it asks for per read.
+  /// Applies to the next connection.
+  ///
+  /// The read size starts at [readBufferSize] and adapts to observed throughput within
+  /// [minReadBufferSize] and [maxReadBufferSize]. Keep [minReadBufferSize] at or above the
+  /// host's bulk transfer size; Android drops the part of a transfer that does not fit.
+  static Future<void> setReaderOptions({
+    UsbReaderMode mode = UsbReaderMode.blocking,
+    Duration pollInterval = const Duration(milliseconds: 10),
+    int readBufferSize = 16384,
+    int minReadBufferSize = 16384,
+    int maxReadBufferSize = 262144,
+  }) async {
+    await _channel.invokeMethod('setReaderOptions', {
+      'mode': mode.name,
+      'pollIntervalMs': pollInterval.inMilliseconds,
+      'readBufferSize': readBufferSize,
+      'minReadBufferSize': minReadBufferSize,
+      'maxReadBufferSize': maxReadBufferSize,
+    });
+  }
+
+  /// Sets how inbound messages are batched and queued on their way to Dart.
+  ///
+  /// A batch is sent once it holds [maxBatchCount] messages or [maxBatchBytes] payload
+  /// bytes, or [maxDelay] after its first message. With [Duration.zero], everything that
+  /// arrives before the platform thread gets to the flush is sent together.
+  ///
+  /// Messages not yet delivered may take up at most [maxQueuedCount] messages and
+  /// [maxQueuedBytes] payload bytes per stream. [overflowPolicy] decides what happens
+  /// beyond that.
+  static Future<void> setDeliveryOptions({
+    int maxBatchCount = 256,
+    int maxBatchBytes = 262144,
+    Duration maxDelay = Duration.zero,
+    int maxQueuedCount = 8192,
+    int maxQueuedBytes = 8388608,
+    UsbOverflowPolicy overflowPolicy = UsbOverflowPolicy.block,
+  }) async {
+    await _channel.invokeMethod('setDeliveryOptions', {
+      'maxBatchCount': maxBatchCount,
+      'maxBatchBytes': maxBatchBytes,
+      'maxDelayMs': maxDelay.inMilliseconds,
+      'maxQueuedCount': maxQueuedCount,
+      'maxQueuedBytes': maxQueuedBytes,
+      'overflowPolicy': overflowPolicy.name,
+    });
+  }
+
+  /// Sets how many inbound frames are kept while no stream is listening.
+  ///
+  /// Frames that arrive before [messageStream] or [bytesStream] has a listener, for example
+  /// right after the accessory opens or during a hot restart, are held natively and
+  /// delivered as one batch to the first stream that starts listening. Once [maxCount]
+  /// frames or [maxBytes] payload bytes are held, the oldest are dropped. Zero for either
+  /// disables replay.
+  static Future<void> setReplayOptions({
+    int maxCount = 256,
+    int maxBytes = 262144,
+  }) async {
+    await _channel.invokeMethod('setReplayOptions', {
+      'maxCount': maxCount,
+      'maxBytes': maxBytes,
+    });
+  }
+
+  /// Delivers only the latest message per key in each batch, or everything with null.
+  ///
+  /// Meant for high-rate telemetry where only the newest value per sensor matters. Messages
+  /// with the same [key] that arrive before a batch is handed to Dart replace each other,
+  /// keeping the position of the first. Combine with a `maxDelay` in [setDeliveryOptions]
+  /// to deliver at display rate.
+  static Future<void> setConflation(UsbPayloadKey? key) async {
+    await _channel.invokeMethod('setConflation', key?._toMap() ?? {'mode': 'none'});
+  }
+
+  /// Sets where each payload's topic sits, turning on topic filtering, or off with null.
+  ///
+  /// While a topic key is set, only payloads whose topic was passed to [subscribe] or
+  /// [subscribeBytes] are delivered; the rest are dropped on the native side before they
+  /// are copied or decoded, and counted in [UsbLinkStats.framesFiltered]. Payloads without
+  /// a topic are always delivered.
+  static Future<void> setTopicKey(UsbPayloadKey? key) async {
+    await _channel.invokeMethod('setTopicKey', key?._toMap() ?? {'mode': 'none'});
+  }
+
+  /// Delivers payloads whose topic is [topic] in UTF-8. Returns false if already subscribed.
+  static Future<bool> subscribe(String topic) async {
+    final result = await _channel.invokeMethod<bool>('subscribe', {'topic': topic});
+    return result ?? false;
+  }
+
+  /// Delivers payloads whose topic is exactly [topic]. Returns false if already subscribed.
+  static Future<bool> subscribeBytes(Uint8List topic) async {
+    final result = await _channel.invokeMethod<bool>('subscribe', {'topic': topic});
+    return result ?? false;
+  }
+
+  /// Stops delivering payloads with [topic]. Returns false if it was not subscribed.
+  static Future<bool> unsubscribe(String topic) async {
+    final result = await _channel.invokeMethod<bool>('unsubscribe', {'topic': topic});
+    return result ?? false;
+  }
+
+  /// Stops delivering payloads with [topic]. Returns false if it was not subscribed.
+  static Future<bool> unsubscribeBytes(Uint8List topic) async {
+    final result = await _channel.invokeMethod<bool>('unsubscribe', {'topic': topic});
+    return result ?? false;
+  }
+
+  /// Sets native logging. Disabled levels cost nothing on the native side.
+  ///
+  /// Per-frame logs are off unless [frameSampleRate] is set, in which case one frame in
+  /// [frameSampleRate] is logged at debug level. Payload contents are only logged when
+  /// [logPayloads] is true.
+  static Future<void> setLogOptions({
+    UsbLogLevel level = UsbLogLevel.info,
+    int frameSampleRate = 0,
+    bool logPayloads = false,
+  }) async {
+    await _channel.invokeMethod('setLogOptions', {
+      'level': level.name,
+      'frameSampleRate': frameSampleRate,
+      'logPayloads': logPayloads,
+    });
+  }
+
+  /// Turns native trace sections and counters on or off
+  ///
+  /// When enabled, the reader, decoder, delivery and writer stages emit
+  /// `android.os.Trace` sections (`AccessoryKit:*`) that show up in Perfetto
+  /// and systrace captures. Counters require Android 10 or later.
+  static Future<void> setTracingEnabled(bool enabled) async {
+    await _channel.invokeMethod('setTracingEnabled', {'enabled': enabled});
+  }
+
   /// Starts scanning for USB devices
-  static Future<bool> startScan() async {
-    final result = await _channel.invokeMethod<bool>('startScan');
+  ///
+  /// [ioEngine] selects the I/O path used when the accessory is opened.
+  static Future<bool> startScan({UsbIoEngine ioEngine = UsbIoEngine.stream}) async {
+    final result = await _channel.invokeMethod<bool>('startScan', {'ioEngine': ioEngine.name});
     return result ?? false;
   }
 
@@ -174,15 +664,148 @@ class AccessoryKitUsb {
     return result ?? false;
   }
 
+  /// Sends raw bytes to the connected USB device
+  static Future<bool> sendBytes(Uint8List data) async {
+    final result = await _channel.invokeMethod<bool>('sendBytes', {'data': data});
+    return result ?? false;
+  }
+
+  /// Number of sends queued on the native writer thread and not yet written
+  static Future<int> getSendQueueDepth() async {
+    final result = await _channel.invokeMethod<int>('getSendQueueDepth');
+    return result ?? 0;
+  }
+
+  /// Returns a snapshot of the native link counters
+  static Future<UsbLinkStats> getStats() async {
+    final result = await _channel.invokeMapMethod<dynamic, dynamic>('getStats');
+    return UsbLinkStats.fromMap(result ?? const {});
+  }
+
+  /// Returns latency percentiles for each native pipeline stage
+  ///
+  /// Inbound stages: `decode` (per chunk), `deliveryQueue` (first message of a batch until
+  /// it is handed to the platform thread) and `mainThreadHop` (hand-off until the event is
+  /// sent to Dart). Outbound stages: `sendQueue` (queued until the writer picks it up) and
+  /// `write`.
+  ///
+  /// `readWait` is reported apart from those: it is the time spent in read() for reads that
+  /// returned data. In the default blocking reader mode a read parks until the host sends,
+  /// so this mostly measures the gaps between transfers, not processing cost.
+  static Future<Map<String, UsbLatencyStats>> getLatencyStats() async {
+    final result = await _channel.invokeMapMethod<String, dynamic>('getLatencyStats');
+    return (result ?? const {}).map(
+      (stage, value) => MapEntry(stage, UsbLatencyStats.fromMap(value as Map<dynamic, dynamic>)),
+    );
+  }
+
+  /// Resets link counters and latency histograms
+  static Future<void> resetStats() async {
+    await _channel.invokeMethod('resetStats');
+  }
+
+  /// Stream of link counter snapshots pushed every [interval]
+  ///
+  /// All callers share one native subscription, which pushes at a single interval. The
+  /// interval is taken when the first listener subscribes; while the stream has listeners,
+  /// asking for a different interval throws a [StateError]. Once every listener has
+  /// cancelled, a new interval can be chosen.
+  static Stream<UsbLinkStats> statsStream({Duration interval = const Duration(seconds: 1)}) {
+    if (_statsStreamController.hasListener && interval != _statsInterval) {
+      throw StateError('statsStream is already pushing every $_statsInterval, not $interval');
+    }
+    _statsInterval = interval;
+    return _statsStreamController.stream;
+  }
+
   /// Releases all resources used by the plugin
   static Future<void> dispose() async {
     await _channel.invokeMethod('dispose');
 
     // Close stream controllers
     await _messageStreamController.close();
+    await _messageBatchStreamController.close();
+    await _bytesStreamController.close();
+    await _bytesBatchStreamController.close();
+    await _statsStreamController.close();
     await _stateStreamController.close();
   }
 
+  static void _listenMessages() {
+    if (_messageSubscription != null) {
+      return;
+    }
+    _messageSubscription = _messageChannel.receiveBroadcastStream().listen(
+      (dynamic event) {
+        if (event is List) {
+          final batch = List<String>.from(event);
+          if (_messageBatchStreamController.hasListener) {
+            _messageBatchStreamController.add(batch);
+          }
+          for (final message in batch) {
+            _messageStreamController.add(message);
+          }
+        }
+      },
+      onError: (dynamic error) {
+        print('Error receiving message: $error');
+      },
+    );
+  }
+
+  static void _cancelMessages() {
+    if (_messageStreamController.hasListener || _messageBatchStreamController.hasListener) {
+      return;
+    }
+    _messageSubscription?.cancel();
+    _messageSubscription = null;
+  }
+
+  static void _listenBytes() {
+    if (_bytesSubscription != null) {
+      return;
+    }
+    _bytesSubscription = _bytesChannel.receiveBroadcastStream().listen(
+      (dynamic event) {
+        if (event is List) {
+          final batch = List<Uint8List>.from(event);
+          if (_bytesBatchStreamController.hasListener) {
+            _bytesBatchStreamController.add(batch);
+          }
+          for (final payload in batch) {
+            _bytesStreamController.add(payload);
+          }
+        }
+      },
+      onError: (dynamic error) {
+        print('Error receiving bytes: $error');
+      },
+    );
+  }
+
+  static void _cancelBytes() {
+    if (_bytesStreamController.hasListener || _bytesBatchStreamController.hasListener) {
+      return;
+    }
+    _bytesSubscription?.cancel();
+    _bytesSubscription = null;
+  }
+
+  static void _listenStats() {
+    _statsSubscription ??= _statsChannel
+        .receiveBroadcastStream(_statsInterval.inMilliseconds)
+        .listen(
+          (dynamic event) =>
+              _statsStreamController.add(UsbLinkStats.fromMap(event as Map<dynamic, dynamic>)),
+          onError: _statsStreamController.addError,
+        );
+  }
+
+  static void _cancelStats() {
+    _statsSubscription?.cancel();
+    _statsSubscription = null;
+  }
+
   /// Parses connection state from string
   static UsbConnectionState _parseConnectionState(String state) {
     switch (state) {